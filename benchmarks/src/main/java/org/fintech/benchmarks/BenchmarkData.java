@@ -0,0 +1,115 @@
+package org.fintech.benchmarks;
+
+import org.fintech.Block;
+import org.fintech.BlockchainPersistence;
+import org.fintech.PersistenceWriter;
+import org.fintech.Transaction;
+import org.fintech.Wallet;
+import org.fintech.WalletManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Testdaten für die Benchmarks: Wallets und Ketten in realistischer Größe.
+ * Feste Seeds, damit alle Läufe dieselbe Verteilung der Transaktionen sehen.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    // SC-Guthaben jeder Test-Wallet, damit createTransaction signieren darf
+    private static final double WALLET_BALANCE = 1_000_000.0;
+
+    private static Path tempDir;
+
+    /**
+     * Leitet Block-Log (samt Snapshots) und Wallet-Datei in ein temporäres Verzeichnis um –
+     * Speichern einer Benchmark-Kette würde sonst das echte Log kürzen und wallets.json überschreiben.
+     * Vor dem ersten createWallets aufrufen.
+     */
+    static synchronized Path useTempFiles() {
+        if (tempDir != null) return tempDir;
+        try {
+            tempDir = Files.createTempDirectory("mychain-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        BlockchainPersistence.setDirectory(tempDir.resolve("blockchain-log"));
+        WalletManager.setWalletsFile(tempDir.resolve("wallets.json"));
+        return tempDir;
+    }
+
+    /** Schreibt Ausstehendes, schließt das Log und löscht das temporäre Verzeichnis. */
+    static synchronized void deleteTempFiles() {
+        if (tempDir == null) return;
+        PersistenceWriter.shutdown();
+        BlockchainPersistence.close();
+        try (var files = Files.walk(tempDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Temporäres Verzeichnis nicht gelöscht: " + e.getMessage());
+        }
+    }
+
+    /** Legt walletCount Benutzer-Wallets über den WalletManager an (inkl. Index-Registrierung). */
+    static List<Wallet> createWallets(int walletCount) {
+        List<Wallet> wallets = new ArrayList<>(walletCount);
+        for (int i = 0; i < walletCount; i++) {
+            Wallet wallet = WalletManager.createWallet();
+            wallet.setBalance(WALLET_BALANCE);
+            wallets.add(wallet);
+        }
+        return wallets;
+    }
+
+    /**
+     * Baut eine Kette aus chainLength Blöcken mit je txPerBlock Transaktionen zwischen den Wallets.
+     * Die Transaktionen sind signiert wie im Simulator (die Signaturprüfung beim Laden findet so keine Fehler),
+     * gemined wird mit Schwierigkeit 1.
+     */
+    static List<Block> createChain(List<Wallet> wallets, int chainLength, int txPerBlock) {
+        Random random = new Random(42);
+        List<Block> blocks = new ArrayList<>(chainLength);
+
+        List<Transaction> genesisTxs = new ArrayList<>();
+        genesisTxs.add(new Transaction("system", WalletManager.SUPPLY_WALLET.getAddress(), 10000000000000.0, "Genesis Supply"));
+        Block genesis = new Block(genesisTxs, "0");
+        genesis.mineBlock(1);
+        blocks.add(genesis);
+
+        for (int h = 1; h < chainLength; h++) {
+            List<Transaction> txs = new ArrayList<>(txPerBlock);
+            for (int t = 0; t < txPerBlock; t++) {
+                Wallet from = wallets.get(random.nextInt(wallets.size()));
+                Wallet to = wallets.get(random.nextInt(wallets.size()));
+                double amount = Math.round(random.nextDouble() * 1000.0) / 1000.0 + 0.001;
+                txs.add(from.createTransaction(to.getAddress(), amount, "Benchmark"));
+            }
+            Block block = new Block(txs, blocks.get(h - 1).getHash());
+            block.mineBlock(1);
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /** Ein Block mit txCount Transaktionen, wie ihn der BlockAssembler bauen würde. */
+    static Block createBlock(List<Wallet> wallets, int txCount, String previousHash) {
+        Random random = new Random(7);
+        List<Transaction> txs = new ArrayList<>(txCount);
+        for (int t = 0; t < txCount; t++) {
+            Wallet from = wallets.get(random.nextInt(wallets.size()));
+            Wallet to = wallets.get(random.nextInt(wallets.size()));
+            txs.add(from.createTransaction(to.getAddress(), 1.5, "Benchmark"));
+        }
+        return new Block(txs, previousHash);
+    }
+}
@@ -0,0 +1,51 @@
+package org.fintech.benchmarks;
+
+import org.fintech.StringUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 über typische Eingaben (Block-Header-String, Passwort) und Base58 für Adressen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+
+    // 100 ≈ Passwort/Adresse, 1000 ≈ Block mit einigen Transaktionen, 10000 ≈ voller Block
+    @Param({"100", "1000", "10000"})
+    public int inputLength;
+
+    private String input;
+    private byte[] addressPayload;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder(inputLength);
+        for (int i = 0; i < inputLength; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        input = sb.toString();
+
+        // Versionsbyte + RIPEMD-160 + Checksumme, wie in Wallet.generateAddress
+        addressPayload = new byte[25];
+        random.nextBytes(addressPayload);
+        addressPayload[0] = 0x00;
+    }
+
+    @Benchmark
+    public String applySha256() {
+        return StringUtil.applySha256(input);
+    }
+
+    @Benchmark
+    public String base58Encode() {
+        return StringUtil.base58Encode(addressPayload);
+    }
+}
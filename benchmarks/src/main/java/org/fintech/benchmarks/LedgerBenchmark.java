@@ -0,0 +1,56 @@
+package org.fintech.benchmarks;
+
+import org.fintech.Block;
+import org.fintech.Blockchain;
+import org.fintech.Wallet;
+import org.fintech.WalletManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance-Berechnung: vollständiger Replay gegen den inkrementellen Pfad (nur der neueste Block).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LedgerBenchmark {
+
+    @Param({"100", "1000"})
+    public int walletCount;
+
+    @Param({"1000", "10000"})
+    public int chainLength;
+
+    private Blockchain chain;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        WalletManager.setConsistencyCheck(false);
+        BenchmarkData.useTempFiles();
+        List<Wallet> wallets = BenchmarkData.createWallets(walletCount);
+        List<Block> blocks = BenchmarkData.createChain(wallets, chainLength, 5);
+        chain = new Blockchain(blocks, "Benchmark", 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteTempFiles();
+    }
+
+    @Benchmark
+    public Blockchain recalculateAllBalances() {
+        WalletManager.recalculateAllBalances(chain);
+        return chain;
+    }
+
+    @Benchmark
+    public Blockchain applyLatestBlock() {
+        WalletManager.applyLatestBlock(chain);
+        return chain;
+    }
+}
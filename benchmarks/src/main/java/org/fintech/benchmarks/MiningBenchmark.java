@@ -0,0 +1,65 @@
+package org.fintech.benchmarks;
+
+import org.fintech.Block;
+import org.fintech.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block-Hash und Proof-of-Work. mineBlock läuft ab Schwierigkeit 3 parallel über den ParallelMiner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MiningBenchmark {
+
+    @Param({"1", "2", "3", "4"})
+    public int difficulty;
+
+    // Transaktionen pro Block (BlockAssembler-Standard: bis zu 50)
+    @Param({"1", "50"})
+    public int txPerBlock;
+
+    private List<Wallet> wallets;
+    private Block header;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        BenchmarkData.useTempFiles();
+        wallets = BenchmarkData.createWallets(20);
+        header = BenchmarkData.createBlock(wallets, txPerBlock, "0");
+    }
+
+    // Eigener State, damit das Setup pro Aufruf nur den Mining-Benchmark betrifft
+    @State(Scope.Thread)
+    public static class Candidate {
+        Block block;
+
+        // Jede Messung mined einen frischen Block (neuer Zeitstempel → neue Nonce-Suche)
+        @Setup(Level.Invocation)
+        public void setup(MiningBenchmark outer) {
+            block = BenchmarkData.createBlock(outer.wallets, outer.txPerBlock, outer.header.getHash());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteTempFiles();
+    }
+
+    @Benchmark
+    public String calculateHash() {
+        return header.calculateHash();
+    }
+
+    @Benchmark
+    public String mineBlock(Candidate candidate) {
+        candidate.block.mineBlock(difficulty);
+        return candidate.block.getHash();
+    }
+}
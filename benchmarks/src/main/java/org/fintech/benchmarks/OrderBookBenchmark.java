@@ -0,0 +1,60 @@
+package org.fintech.benchmarks;
+
+import org.fintech.OrderBook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching-Engine allein (ohne Wallets/Signaturen): gemischter Strom aus Limit-Orders, Market-Orders
+ * und Stornos um einen festen Mittelpreis. Ergebnis in Order-Ereignissen pro Sekunde auf einem Thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final long MID = 10_000;
+
+    // Preisstufen je Seite, über die Limit-Orders gestreut werden
+    @Param({"10", "100"})
+    public int depth;
+
+    private OrderBook book;
+    private SplittableRandom random;
+    private long[] recent;
+    private int next;
+    private long fills;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        book = new OrderBook((makerOrderId, makerOwner, takerOrderId, takerOwner, takerBuy, price, quantity) -> fills++);
+        random = new SplittableRandom(42);
+        recent = new long[4096];
+        // Buch vorfüllen
+        for (int i = 0; i < recent.length; i++) {
+            boolean buy = (i & 1) == 0;
+            recent[i] = book.submitLimit(i % 1000, buy, MID + (buy ? -1 : 1) * (1 + random.nextInt(depth)), 1 + random.nextInt(100));
+        }
+    }
+
+    @Benchmark
+    public long orderEvent() {
+        int op = random.nextInt(10);
+        boolean buy = random.nextBoolean();
+        int owner = random.nextInt(1000);
+        if (op < 6) {
+            long id = book.submitLimit(owner, buy, MID + (buy ? -1 : 1) * random.nextInt(depth), 1 + random.nextInt(100));
+            recent[next++ & (recent.length - 1)] = id;
+            return id;
+        } else if (op < 8) {
+            return book.submitMarket(owner, buy, 1 + random.nextInt(100));
+        } else {
+            return book.cancel(recent[random.nextInt(recent.length)]) ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.fintech.benchmarks;
+
+import org.fintech.Block;
+import org.fintech.Blockchain;
+import org.fintech.BlockchainPersistence;
+import org.fintech.Transaction;
+import org.fintech.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speichern und Laden der Kette über das Block-Log.
+ *
+ * saveFullChain schreibt eine reine Speicher-Kette komplett neu (Log wird gekürzt und neu befüllt),
+ * appendBlock misst den Normalfall im Simulator: genau ein neuer Block wird angehängt.
+ * loadAndReadAll lädt die (im Setup gespeicherte) Kette und liest jeden Block einmal
+ * (Blöcke werden erst beim Zugriff dekodiert). Log und Wallet-Datei liegen in einem temporären Verzeichnis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({"1000", "10000"})
+    public int chainLength;
+
+    private List<Wallet> wallets;
+    private List<Block> blocks;
+    private Blockchain fresh;
+    private Blockchain stored;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        BenchmarkData.useTempFiles();
+        wallets = BenchmarkData.createWallets(200);
+        blocks = BenchmarkData.createChain(wallets, chainLength, 5);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        fresh = new Blockchain(blocks, "Benchmark", 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteTempFiles();
+    }
+
+    @Benchmark
+    public Blockchain saveFullChain() {
+        BlockchainPersistence.saveBlockchain(fresh);
+        return fresh;
+    }
+
+    @State(Scope.Benchmark)
+    public static class LoadState {
+        @Setup(Level.Trial)
+        public void setup(PersistenceBenchmark outer) {
+            BlockchainPersistence.saveBlockchain(new Blockchain(outer.blocks, "Benchmark", 1));
+        }
+    }
+
+    @Benchmark
+    public int loadAndReadAll(LoadState state) {
+        Blockchain loaded = BlockchainPersistence.loadBlockchain("Benchmark", 1);
+        int txCount = 0;
+        for (int i = 0; i < loaded.size(); i++) {
+            txCount += loaded.getBlock(i).getTransactions().size();
+        }
+        return txCount;
+    }
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+        Blockchain chain;
+        List<Wallet> wallets;
+        List<Transaction> transactions;
+
+        @Setup(Level.Trial)
+        public void setup(PersistenceBenchmark outer) {
+            wallets = outer.wallets;
+            chain = new Blockchain(outer.blocks, "Benchmark", 1);
+            BlockchainPersistence.saveBlockchain(chain);
+        }
+
+        // Signieren gehört nicht zur Messung
+        @Setup(Level.Invocation)
+        public void nextBlock() {
+            transactions = BenchmarkData.createBlock(wallets, 5, "0").getTransactions();
+        }
+    }
+
+    @Benchmark
+    public Blockchain appendBlock(AppendState state) {
+        state.chain.addBlock(state.transactions);
+        BlockchainPersistence.saveBlockchain(state.chain);
+        return state.chain;
+    }
+}
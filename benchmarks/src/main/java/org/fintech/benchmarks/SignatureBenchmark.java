@@ -0,0 +1,47 @@
+package org.fintech.benchmarks;
+
+import org.fintech.Transaction;
+import org.fintech.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ECDSA (secp256k1): Signieren beim Erzeugen einer Transaktion, Prüfen und Schlüsselerzeugung.
+ * Signieren liegt auf dem Pfad jedes simulierten Trades.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBenchmark {
+
+    private Wallet sender;
+    private Wallet recipient;
+    private Transaction signed;
+
+    @Setup
+    public void setup() {
+        sender = new Wallet("benchmark", 0.0);
+        recipient = new Wallet("benchmark", 0.0);
+        signed = new Transaction(sender, recipient.getAddress(), 12.345, "Benchmark");
+    }
+
+    @Benchmark
+    public Transaction signTransaction() {
+        return new Transaction(sender, recipient.getAddress(), 12.345, "Benchmark");
+    }
+
+    @Benchmark
+    public boolean verifySignature() {
+        return signed.verifySignature(sender.getPublicKey());
+    }
+
+    @Benchmark
+    public Wallet generateWallet() {
+        // Schlüsselpaar + Adresse (SHA-256, RIPEMD-160, Base58) + Passwort-Hash
+        return new Wallet("benchmark", 0.0);
+    }
+}
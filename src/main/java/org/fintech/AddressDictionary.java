@@ -0,0 +1,114 @@
+package org.fintech;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistentes Adress-Wörterbuch für das Binärformat: jede Adresse wird genau einmal
+ * gespeichert, Blöcke referenzieren sie nur noch über eine fortlaufende ID (varint).
+ *
+ * Neue Adressen werden angehängt und geflusht, bevor der Block geschrieben wird, der sie nutzt.
+ */
+public class AddressDictionary implements Closeable {
+
+    private final Path file;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> addresses = new ArrayList<>();
+    private FileChannel channel;
+    private DataOutputStream out;
+
+    private AddressDictionary(Path file) throws IOException {
+        this.file = file;
+        load();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    public static AddressDictionary open(Path file) throws IOException {
+        return new AddressDictionary(file);
+    }
+
+    /**
+     * Liefert die ID einer Adresse und legt sie bei Bedarf neu an.
+     */
+    public synchronized int idFor(String address) throws IOException {
+        Integer id = ids.get(address);
+        if (id != null) return id;
+
+        out.writeUTF(address);
+        out.flush();
+        int newId = addresses.size();
+        addresses.add(address);
+        ids.put(address, newId);
+        return newId;
+    }
+
+    public synchronized String address(int id) {
+        if (id < 0 || id >= addresses.size()) {
+            throw new IllegalArgumentException("Unbekannte Adress-ID: " + id);
+        }
+        return addresses.get(id);
+    }
+
+    public synchronized int size() {
+        return addresses.size();
+    }
+
+    /** Schreibt neue Einträge auf das Speichermedium (vor den Blöcken, die sie referenzieren). */
+    public synchronized void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    // Liest alle vollständigen Einträge; ein abgerissener letzter Eintrag wird abgeschnitten
+    private void load() throws IOException {
+        if (!Files.exists(file)) return;
+
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                String address;
+                try {
+                    address = in.readUTF();
+                } catch (EOFException | UTFDataFormatException e) {
+                    break;
+                }
+                ids.putIfAbsent(address, addresses.size());
+                addresses.add(address);
+                validBytes += 2 + utfLength(address);
+            }
+        }
+
+        if (Files.size(file) > validBytes) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(validBytes);
+            }
+            System.out.println("Adress-Wörterbuch: beschädigtes Ende abgeschnitten.");
+        }
+    }
+
+    // Länge in Modified UTF-8 (wie DataOutputStream.writeUTF)
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) length += 1;
+            else if (c > 0x07FF) length += 3;
+            else length += 2;
+        }
+        return length;
+    }
+}
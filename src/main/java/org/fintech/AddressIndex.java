@@ -0,0 +1,132 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sekundärindex Adresse → Transaktionen: pro Adresse eine Posting-Liste aus (Höhe, txIndex),
+ * gepackt in ein long (Höhe in den oberen, txIndex in den unteren 32 Bit), aufsteigend sortiert.
+ *
+ * Verlauf und Anzahl einer Wallet kosten damit O(Treffer) statt eines Scans über die ganze Kette.
+ * Wird von {@link Blockchain} beim Anhängen/Zurücksetzen gepflegt und über {@link AddressIndexLog} gespeichert.
+ */
+public class AddressIndex {
+
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+    private int height = 0;
+
+    /** Nimmt den Block mit der nächsten Höhe auf (Blöcke müssen lückenlos in Reihenfolge kommen). */
+    public synchronized void add(int blockHeight, Block block) {
+        if (blockHeight != height) {
+            throw new IllegalStateException("Adress-Index bei Höhe " + height + ", erwartet wurde Block " + blockHeight);
+        }
+        List<Transaction> txs = block.getTransactions();
+        for (int i = 0; i < txs.size(); i++) {
+            add(txs.get(i).getSender(), blockHeight, i);
+            if (!txs.get(i).getRecipient().equals(txs.get(i).getSender())) {
+                add(txs.get(i).getRecipient(), blockHeight, i);
+            }
+        }
+        height = blockHeight + 1;
+    }
+
+    // Einzelner Eintrag (auch beim Laden aus dem AddressIndexLog)
+    synchronized void add(String address, int blockHeight, int txIndex) {
+        postings.computeIfAbsent(address, a -> new Postings()).append(pack(blockHeight, txIndex));
+    }
+
+    synchronized void setHeight(int height) {
+        this.height = height;
+    }
+
+    /** Entfernt alle Einträge ab newHeight (z.B. nach resetChain). */
+    public synchronized void truncate(int newHeight) {
+        long limit = pack(newHeight, 0);
+        postings.values().removeIf(p -> p.truncateFrom(limit) == 0);
+        height = newHeight;
+    }
+
+    /** Entfernt Einträge unterhalb von base (Blöcke nach einem Snapshot entfernt). */
+    public synchronized void pruneBelow(int base) {
+        long limit = pack(base, 0);
+        postings.values().removeIf(p -> p.dropBelow(limit) == 0);
+        if (height < base) height = base;
+    }
+
+    public synchronized int getHeight() {
+        return height;
+    }
+
+    public synchronized int count(String address) {
+        Postings p = postings.get(address);
+        return p == null ? 0 : p.size;
+    }
+
+    /** Gepackte (Höhe, txIndex)-Paare einer Adresse, aufsteigend. */
+    public synchronized long[] postings(String address) {
+        Postings p = postings.get(address);
+        return p == null ? new long[0] : Arrays.copyOf(p.data, p.size);
+    }
+
+    /** Alle Transaktionen einer Adresse in Kettenreihenfolge – liest nur die betroffenen Blöcke. */
+    public List<Transaction> transactions(String address, Blockchain chain) {
+        long[] entries = postings(address);
+        List<Transaction> result = new ArrayList<>(entries.length);
+        int cachedHeight = -1;
+        List<Transaction> cachedTxs = null;
+        for (long entry : entries) {
+            int h = height(entry);
+            if (h != cachedHeight) {
+                cachedTxs = chain.getBlock(h).getTransactions();
+                cachedHeight = h;
+            }
+            result.add(cachedTxs.get(txIndex(entry)));
+        }
+        return result;
+    }
+
+    public synchronized int addressCount() {
+        return postings.size();
+    }
+
+    static long pack(int blockHeight, int txIndex) {
+        return ((long) blockHeight << 32) | (txIndex & 0xFFFFFFFFL);
+    }
+
+    public static int height(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int txIndex(long entry) {
+        return (int) entry;
+    }
+
+    // Wachsendes long-Array ohne Boxing
+    private static final class Postings {
+        long[] data = new long[4];
+        int size;
+
+        void append(long entry) {
+            // Doppelte Einträge (gleiche Tx erneut) ignorieren – Liste ist aufsteigend
+            if (size > 0 && data[size - 1] == entry) return;
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = entry;
+        }
+
+        int dropBelow(long limit) {
+            int first = Arrays.binarySearch(data, 0, size, limit);
+            if (first < 0) first = -first - 1;
+            System.arraycopy(data, first, data, 0, size - first);
+            size -= first;
+            return size;
+        }
+
+        int truncateFrom(long limit) {
+            while (size > 0 && data[size - 1] >= limit) size--;
+            return size;
+        }
+    }
+}
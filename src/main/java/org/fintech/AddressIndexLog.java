@@ -0,0 +1,178 @@
+package org.fintech;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Persistenz für den {@link AddressIndex}: append-only Datei aus 12-Byte-Records
+ * (int Höhe, int txIndex, int Adress-ID aus dem {@link AddressDictionary}).
+ *
+ * Jeder Block endet mit einem Abschluss-Record (Höhe, -1, txCount). Beim Laden zählt nur,
+ * was durch einen Abschluss gedeckt ist; ein abgerissener Block wird abgeschnitten.
+ * So muss beim Start keine Kette gescannt werden – nur Blöcke, die im Index noch fehlen.
+ */
+public class AddressIndexLog implements Closeable {
+
+    static final int RECORD_BYTES = 12;
+    private static final int BLOCK_END = -1;
+
+    private final Path file;
+    private FileChannel channel;
+    private int height;
+
+    private AddressIndexLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public static AddressIndexLog open(Path file) throws IOException {
+        return new AddressIndexLog(file);
+    }
+
+    /**
+     * Liest alle abgeschlossenen Blöcke zwischen baseHeight und maxHeight in den Index und kürzt den Rest weg.
+     * Einträge unterhalb der Basis des Block-Logs werden übersprungen.
+     * @return Höhe, bis zu der der Index vollständig ist
+     */
+    public synchronized int readInto(AddressIndex index, AddressDictionary dictionary, int baseHeight, int maxHeight) throws IOException {
+        long records = channel.size() / RECORD_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 4096);
+        long validRecords = 0;
+        int indexed = baseHeight;
+        index.setHeight(baseHeight);
+
+        channel.position(0);
+        long read = 0;
+        readLoop:
+        while (read < records) {
+            buffer.clear();
+            long chunk = Math.min(records - read, 4096);
+            buffer.limit((int) (chunk * RECORD_BYTES));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break readLoop;
+            }
+            buffer.flip();
+
+            for (int i = 0; i < chunk; i++) {
+                int h = buffer.getInt();
+                int txIndex = buffer.getInt();
+                int value = buffer.getInt();
+                read++;
+
+                if (h < baseHeight) {
+                    validRecords = read;
+                    continue;
+                }
+                if (h != indexed || h >= maxHeight) break readLoop;
+                if (txIndex == BLOCK_END) {
+                    // Block vollständig
+                    indexed = h + 1;
+                    validRecords = read;
+                    index.setHeight(indexed);
+                } else {
+                    index.add(dictionary.address(value), h, txIndex);
+                }
+            }
+        }
+
+        if (validRecords < records) {
+            // Einträge hinter dem letzten Abschluss wurden evtl. schon übernommen → Index darauf kürzen
+            index.truncate(indexed);
+            channel.truncate(validRecords * RECORD_BYTES);
+        }
+        channel.position(validRecords * RECORD_BYTES);
+        height = indexed;
+        return indexed;
+    }
+
+    /** Hängt die Einträge eines Blocks samt Abschluss-Record an. */
+    public synchronized void append(int blockHeight, Block block, AddressDictionary dictionary) throws IOException {
+        if (blockHeight != height) {
+            throw new IllegalStateException("Adress-Index-Log bei Höhe " + height + ", erwartet wurde Block " + blockHeight);
+        }
+        List<Transaction> txs = block.getTransactions();
+        ByteBuffer buffer = ByteBuffer.allocate((txs.size() * 2 + 1) * RECORD_BYTES);
+        for (int i = 0; i < txs.size(); i++) {
+            Transaction tx = txs.get(i);
+            putRecord(buffer, blockHeight, i, dictionary.idFor(tx.getSender()));
+            if (!tx.getRecipient().equals(tx.getSender())) {
+                putRecord(buffer, blockHeight, i, dictionary.idFor(tx.getRecipient()));
+            }
+        }
+        putRecord(buffer, blockHeight, BLOCK_END, txs.size());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, channel.size());
+        }
+        height = blockHeight + 1;
+    }
+
+    /** Entfernt alle Einträge ab newHeight (Records sind nach Höhe sortiert). */
+    public synchronized void truncate(int newHeight) throws IOException {
+        long keep = channel.size() / RECORD_BYTES;
+        while (keep > 0 && heightAt(keep - 1) >= newHeight) {
+            keep--;
+        }
+        channel.truncate(keep * RECORD_BYTES);
+        height = newHeight;
+    }
+
+    /** Schreibt die Datei ohne die Einträge unterhalb von base neu (temporäre Datei + Umbenennen). */
+    public synchronized void pruneBelow(int base) throws IOException {
+        long records = channel.size() / RECORD_BYTES;
+        long low = 0;
+        long high = records;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (heightAt(mid) < base) low = mid + 1;
+            else high = mid;
+        }
+        if (low == 0) return;
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = low * RECORD_BYTES;
+            long end = records * RECORD_BYTES;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+            out.force(false);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (height < base) height = base;
+    }
+
+    private int heightAt(long record) throws IOException {
+        ByteBuffer heightBuffer = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(heightBuffer, record * RECORD_BYTES);
+        return heightBuffer.flip().getInt();
+    }
+
+    public synchronized int getHeight() {
+        return height;
+    }
+
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private static void putRecord(ByteBuffer buffer, int blockHeight, int txIndex, int value) {
+        buffer.putInt(blockHeight).putInt(txIndex).putInt(value);
+    }
+}
@@ -7,14 +7,21 @@ import java.util.Date;
 import java.util.List;
 
 public class Block {
+    // 🌟 Version 1: Hash über alle txIds (Altbestand), Version 2: Hash über die Merkle-Wurzel (fester Header)
+    public static final int LEGACY_VERSION = 1;
+    public static final int CURRENT_VERSION = 2;
+
+    private final int version;
     private String hash;
     private final String previousHash;
     private final List<Transaction> transactions;
     private long timeStamp;
     private int nonce;
+    private transient String merkleRoot;
 
     // Normaler Block
     public Block(List<Transaction> transactions, String previousHash) {
+        this.version = CURRENT_VERSION;
         this.transactions = new ArrayList<>(transactions);
         this.previousHash = previousHash;
         this.timeStamp = new Date().getTime();
@@ -24,6 +31,7 @@ public class Block {
 
     // Genesis-Block – KEIN privateKey mehr!
     public Block(String genesisMessage) {
+        this.version = CURRENT_VERSION;
         this.transactions = new ArrayList<>();
         Transaction genesisTx = new Transaction("system", "genesis", 1000.0, genesisMessage);
         this.transactions.add(genesisTx);
@@ -33,27 +41,114 @@ public class Block {
         this.hash = calculateHash();
     }
 
+    // Wiederherstellung aus dem Speicher (JSON/Binär) – der gespeicherte Hash wird übernommen
+    Block(int version, String hash, String previousHash, List<Transaction> transactions, long timeStamp, int nonce) {
+        if (version != LEGACY_VERSION && version != CURRENT_VERSION) {
+            throw new IllegalArgumentException("Unbekannte Block-Version: " + version);
+        }
+        this.version = version;
+        this.transactions = new ArrayList<>(transactions);
+        this.previousHash = previousHash;
+        this.timeStamp = timeStamp;
+        this.nonce = nonce;
+        this.hash = hash;
+    }
+
     public String calculateHash() {
+        return calculateHash(timeStamp, nonce, getTxData());
+    }
+
+    // Hash für einen Kandidaten (Zeitstempel/Nonce), ohne den Block zu verändern – für den Miner
+    String calculateHash(long candidateTimeStamp, int candidateNonce, String txData) {
+        String input = previousHash + candidateTimeStamp + candidateNonce + txData;
+        return StringUtil.applySha256(input);
+    }
+
+    // Transaktionsteil des Header-Inputs: v2 = Merkle-Wurzel (immer 64 Zeichen), v1 = alle txIds
+    String getTxData() {
+        if (version >= CURRENT_VERSION) return getMerkleRoot();
+
         StringBuilder txData = new StringBuilder();
         for (Transaction tx : transactions) {
             txData.append(tx.getTxId());
         }
-        String input = previousHash + timeStamp + nonce + txData;
-        return StringUtil.applySha256(input);
+        return txData.toString();
+    }
+
+    /** Merkle-Wurzel über die txIds (die Transaktionsliste ist unveränderlich, daher gecacht). */
+    public String getMerkleRoot() {
+        String root = merkleRoot;
+        if (root == null) {
+            root = MerkleTree.root(getTxIds());
+            merkleRoot = root;
+        }
+        return root;
+    }
+
+    /**
+     * Inklusionsbeweis für eine Transaktion dieses Blocks, prüfbar mit {@link MerkleTree#verify(MerkleTree.Proof, String, int)}
+     * gegen {@link #getMerkleRoot()} und die Anzahl der Transaktionen. Null, wenn die Transaktion fehlt oder der Block noch
+     * Version 1 ist (dessen Hash bindet sich nicht an die Merkle-Wurzel).
+     */
+    public MerkleTree.Proof getInclusionProof(String txId) {
+        if (version < CURRENT_VERSION) return null;
+        return MerkleTree.proof(getTxIds(), txId);
+    }
+
+    private List<String> getTxIds() {
+        List<String> ids = new ArrayList<>(transactions.size());
+        for (Transaction tx : transactions) {
+            ids.add(tx.getTxId());
+        }
+        return ids;
     }
 
     public void mineBlock(int difficulty) {
-        String target = "0".repeat(difficulty);
-        while (!hash.startsWith(target)) {
-            nonce++;
-            hash = calculateHash();
+        // 🌟 Ab MIN_PARALLEL_DIFFICULTY wird der Nonce-Raum auf alle Kerne verteilt
+        if (difficulty >= ParallelMiner.MIN_PARALLEL_DIFFICULTY && ParallelMiner.getThreads() > 1) {
+            ParallelMiner.Result result = ParallelMiner.mine(this, difficulty);
+            applyMiningResult(result.timeStamp(), result.nonce(), result.hash());
+            return;
         }
+
+        // Byte-Pfad: pro Versuch werden nur die Nonce-Ziffern im Puffer überschrieben
+        int zeroBits = NonceHasher.zeroBitsForDifficulty(difficulty);
+        String txData = getTxData();
+        long start = System.nanoTime();
+        long attempts = 0;
+        long candidateTimeStamp = timeStamp;
+        int candidateNonce = Math.max(nonce, 0);
+        NonceHasher hasher = new NonceHasher(previousHash, candidateTimeStamp, txData);
+
+        while (true) {
+            attempts++;
+            if (hasher.tryNonce(candidateNonce, zeroBits)) break;
+
+            if (candidateNonce == Integer.MAX_VALUE) {
+                // Nonce-Raum erschöpft → Zeitstempel weiterdrehen und von vorn beginnen
+                candidateTimeStamp++;
+                candidateNonce = 0;
+                hasher = new NonceHasher(previousHash, candidateTimeStamp, txData);
+            } else {
+                candidateNonce++;
+            }
+        }
+        applyMiningResult(candidateTimeStamp, candidateNonce, hasher.hexHash());
+        ParallelMiner.recordRun(attempts, System.nanoTime() - start);
+    }
+
+    void applyMiningResult(long minedTimeStamp, int minedNonce, String minedHash) {
+        this.timeStamp = minedTimeStamp;
+        this.nonce = minedNonce;
+        this.hash = minedHash;
     }
 
     // GETTER
+    public int getVersion() { return version; }
     public String getHash() { return hash; }
     public String getPreviousHash() { return previousHash; }
     public List<Transaction> getTransactions() { return new ArrayList<>(transactions); }
+    public int getTransactionCount() { return transactions.size(); }
     public long getTimeStamp() { return timeStamp; }
     public int getNonce() { return nonce; }
 
@@ -73,6 +168,8 @@ public class Block {
             obj.add("transactions", ctx.serialize(block.transactions));
             obj.addProperty("timeStamp", block.timeStamp);
             obj.addProperty("nonce", block.nonce);
+            // Version 1 ohne Feld, damit alte blockchain.json-Exporte unverändert bleiben
+            if (block.version != LEGACY_VERSION) obj.addProperty("version", block.version);
             return obj;
         }
 
@@ -82,11 +179,13 @@ public class Block {
             Type txListType = new com.google.gson.reflect.TypeToken<List<Transaction>>(){}.getType();
             List<Transaction> loadedTxs = ctx.deserialize(obj.get("transactions"), txListType);
 
-            Block block = new Block(loadedTxs, obj.get("previousHash").getAsString());
-            block.hash = obj.get("hash").getAsString();
-            block.nonce = obj.get("nonce").getAsInt();
-            block.timeStamp = obj.get("timeStamp").getAsLong();
-            return block;
+            int version = obj.has("version") ? obj.get("version").getAsInt() : LEGACY_VERSION;
+            return new Block(version,
+                    obj.get("hash").getAsString(),
+                    obj.get("previousHash").getAsString(),
+                    loadedTxs,
+                    obj.get("timeStamp").getAsLong(),
+                    obj.get("nonce").getAsInt());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.Consumer;
+
+/**
+ * Schneidet Blöcke aus dem Mempool, sobald eine der Schwellen erreicht ist:
+ * Anzahl Transaktionen, geschätzte Bytes oder maximale Wartezeit der ältesten Transaktion.
+ *
+ * Mining, Ledger-Update und Speichern laufen damit einmal pro Block statt einmal pro Trade.
+ * Alle Blöcke werden auf dem eigenen Timer-Thread gebaut, also nacheinander.
+ */
+public class BlockAssembler {
+
+    private static final long POLL_PERIOD = 50;
+
+    private final Blockchain blockchain;
+    private final Mempool mempool;
+    private final Consumer<Block> onBlockAdded;
+
+    private volatile int maxTransactions = 50;
+    private volatile long maxBytes = 64 * 1024;
+    private volatile long maxLatencyMillis = 2000;
+
+    // Eigener Lock für den Timer, damit submit() nicht auf einen laufenden Mining-Vorgang wartet
+    private final Object timerLock = new Object();
+    private Timer timer;
+
+    /**
+     * @param onBlockAdded wird nach jedem neuen Block aufgerufen (Ledger, Persistenz) –
+     *                     erst danach werden die Reservierungen im Mempool freigegeben.
+     */
+    public BlockAssembler(Blockchain blockchain, Mempool mempool, Consumer<Block> onBlockAdded) {
+        this.blockchain = blockchain;
+        this.mempool = mempool;
+        this.onBlockAdded = onBlockAdded;
+    }
+
+    public void start() {
+        synchronized (timerLock) {
+            if (timer != null) return;
+            timer = new Timer("block-assembler", true);
+            timer.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    if (mempool.size() > 0 && mempool.getOldestAgeMillis() >= maxLatencyMillis) {
+                        assemble();
+                    }
+                }
+            }, POLL_PERIOD, POLL_PERIOD);
+        }
+    }
+
+    /** Stoppt den Assembler; noch wartende Transaktionen werden vorher in Blöcke geschrieben. */
+    public void stop() {
+        Timer old;
+        synchronized (timerLock) {
+            old = timer;
+            timer = null;
+        }
+        if (old != null) old.cancel();
+        flush();
+    }
+
+    /** Neue Transaktion einreihen; bei erreichter Anzahl/Größe wird sofort ein Block geschnitten. */
+    public void submit(Transaction tx) {
+        mempool.add(tx);
+        cutIfFull();
+    }
+
+    /** Wie {@link #submit}, der Betrag wurde vorher mit {@link Mempool#tryReserve} reserviert. */
+    public void submitReserved(Transaction tx) {
+        mempool.addReserved(tx);
+        cutIfFull();
+    }
+
+    private void cutIfFull() {
+        if (mempool.size() >= maxTransactions || mempool.sizeInBytes() >= maxBytes) {
+            synchronized (timerLock) {
+                if (timer != null) {
+                    timer.schedule(new TimerTask() {
+                        @Override
+                        public void run() {
+                            assemble();
+                        }
+                    }, 0);
+                    return;
+                }
+            }
+            assemble();
+        }
+    }
+
+    /** Schreibt alle wartenden Transaktionen sofort in Blöcke. */
+    public void flush() {
+        while (mempool.size() > 0) {
+            if (assemble() == null) break;
+        }
+    }
+
+    // Ein Block pro Aufruf; synchronized, damit Timer und flush() nicht parallel minen
+    private synchronized Block assemble() {
+        List<Mempool.Entry> entries = mempool.drain(maxTransactions, maxBytes);
+        if (entries.isEmpty()) return null;
+
+        List<Transaction> txs = new ArrayList<>(entries.size());
+        for (Mempool.Entry e : entries) {
+            txs.add(e.tx());
+        }
+
+        Block block;
+        try {
+            block = blockchain.addBlock(txs);
+        } catch (Exception e) {
+            // Nicht in der Kette: Transaktionen (samt Reservierung und schon verrechneten USD) bleiben im Mempool
+            System.err.println("Fehler beim Erstellen des Blocks: " + e.getMessage());
+            mempool.requeue(entries);
+            return null;
+        }
+
+        try {
+            onBlockAdded.accept(block);
+            System.out.printf("Block #%d: %d Tx | Mempool: %d wartend | Wartezeit Ø %.0f ms, max %.0f ms%n",
+                    blockchain.size() - 1, txs.size(), mempool.size(),
+                    mempool.getAverageWaitMillis(), mempool.getMaxWaitMillis());
+        } catch (Exception e) {
+            System.err.println("Fehler nach dem Anhängen von Block #" + (blockchain.size() - 1) + ": " + e.getMessage());
+        } finally {
+            // Der Block steht in der Kette – erst jetzt die Reservierungen freigeben
+            mempool.confirm(entries);
+        }
+        return block;
+    }
+
+    // --- KONFIGURATION ---
+
+    public void setMaxTransactions(int maxTransactions) {
+        this.maxTransactions = Math.max(1, maxTransactions);
+    }
+
+    public int getMaxTransactions() { return maxTransactions; }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    public void setMaxLatencyMillis(long maxLatencyMillis) {
+        this.maxLatencyMillis = Math.max(0, maxLatencyMillis);
+    }
+
+    public long getMaxLatencyMillis() { return maxLatencyMillis; }
+
+    public Mempool getMempool() { return mempool; }
+}
@@ -0,0 +1,228 @@
+package org.fintech;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kompaktes, versioniertes Binärformat für Blöcke und Transaktionen.
+ *
+ * Aufbau (Version 3):
+ *   MAGIC | VERSION | blockVersion (varint) | hash | previousHash | timeStamp (varlong) | nonce (varint) | merkleRoot | txCount (varint) | tx...
+ *   tx = senderId (varint) | recipientId (varint) | amount | message | txId | signatur (varint länge + bytes)
+ *
+ * Hashes werden als 32 Roh-Bytes gespeichert (statt 64 Hex-Zeichen), Adressen als ID
+ * aus dem {@link AddressDictionary}, Beträge mit höchstens 3 Nachkommastellen als varint in Milli-SC.
+ * Version 1 (ohne blockVersion) wird weiterhin gelesen und ergibt Blöcke der Version 1,
+ * Version 2 (ohne merkleRoot) ebenfalls. Ab Version 3 lässt sich der Header ({@link #decodeHeader})
+ * aus den ersten Bytes lesen, ohne eine Transaktion zu dekodieren.
+ */
+public class BlockCodec {
+
+    static final byte MAGIC = (byte) 0xBC;
+    static final byte VERSION = 3;
+    private static final byte VERSION_WITHOUT_MERKLE_ROOT = 2;
+    private static final byte VERSION_WITHOUT_BLOCK_VERSION = 1;
+    // Obergrenze für den Header-Teil eines Records (Hashes als Text können ihn länger machen)
+    static final int HEADER_PREFIX_BYTES = 256;
+
+    private static final byte HASH_RAW = 0;
+    private static final byte HASH_TEXT = 1;
+    private static final byte AMOUNT_MILLI = 0;
+    private static final byte AMOUNT_DOUBLE = 1;
+
+    private final AddressDictionary dictionary;
+
+    public BlockCodec(AddressDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /** Binär-Payloads beginnen mit MAGIC, JSON-Payloads mit '{'. */
+    public static boolean isBinary(byte[] payload) {
+        return payload.length > 0 && payload[0] == MAGIC;
+    }
+
+    // --- ENCODE ---
+
+    public byte[] encode(Block block) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 + block.getTransactions().size() * 160);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, block.getVersion());
+        writeHash(out, block.getHash());
+        writeHash(out, block.getPreviousHash());
+        writeVarLong(out, zigZag(block.getTimeStamp()));
+        writeVarLong(out, zigZag(block.getNonce()));
+        writeHash(out, block.getMerkleRoot());
+
+        List<Transaction> txs = block.getTransactions();
+        writeVarLong(out, txs.size());
+        for (Transaction tx : txs) {
+            writeVarLong(out, dictionary.idFor(tx.getSender()));
+            writeVarLong(out, dictionary.idFor(tx.getRecipient()));
+            writeAmount(out, tx.getAmount());
+            writeBytes(out, tx.getMessage().getBytes(StandardCharsets.UTF_8));
+            writeHash(out, tx.getTxId());
+            writeBytes(out, tx.getSignature());
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeHash(ByteArrayOutputStream out, String hash) {
+        if (isHex64(hash)) {
+            out.write(HASH_RAW);
+            for (int i = 0; i < 64; i += 2) {
+                out.write((Character.digit(hash.charAt(i), 16) << 4) | Character.digit(hash.charAt(i + 1), 16));
+            }
+        } else {
+            // z.B. previousHash "0" des Genesis-Blocks
+            out.write(HASH_TEXT);
+            writeBytes(out, hash.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeAmount(ByteArrayOutputStream out, double amount) {
+        if (Math.abs(amount) < 9.0e15) {
+            long milli = Math.round(amount * 1000.0);
+            if (milli / 1000.0 == amount) {
+                out.write(AMOUNT_MILLI);
+                writeVarLong(out, zigZag(milli));
+                return;
+            }
+        }
+        out.write(AMOUNT_DOUBLE);
+        long bits = Double.doubleToRawLongBits(amount);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (bits >>> shift));
+        }
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] data) {
+        writeVarLong(out, data.length);
+        out.write(data, 0, data.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // --- DECODE ---
+
+    public Block decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        byte version = readFormatVersion(in);
+        int blockVersion = version >= VERSION_WITHOUT_MERKLE_ROOT ? (int) readVarLong(in) : Block.LEGACY_VERSION;
+
+        String hash = readHash(in);
+        String previousHash = readHash(in);
+        long timeStamp = unZigZag(readVarLong(in));
+        int nonce = (int) unZigZag(readVarLong(in));
+        if (version >= VERSION) {
+            readHash(in); // Merkle-Wurzel – der Block berechnet sie zur Prüfung selbst neu
+        }
+
+        int txCount = (int) readVarLong(in);
+        List<Transaction> txs = new ArrayList<>(txCount);
+        for (int i = 0; i < txCount; i++) {
+            String sender = dictionary.address((int) readVarLong(in));
+            String recipient = dictionary.address((int) readVarLong(in));
+            double amount = readAmount(in);
+            String message = new String(readBytes(in), StandardCharsets.UTF_8);
+            String txId = readHash(in);
+            byte[] signature = readBytes(in);
+            txs.add(new Transaction(sender, recipient, amount, message, txId, signature));
+        }
+        return new Block(blockVersion, hash, previousHash, txs, timeStamp, nonce);
+    }
+
+    /**
+     * Liest nur den Header eines Records (auch aus einem abgeschnittenen Anfang des Payloads).
+     * Null bei älteren Formaten ohne Merkle-Wurzel oder wenn der Anfang nicht reicht – dann den ganzen Block dekodieren.
+     */
+    public static BlockHeader decodeHeader(byte[] payload, int height) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            if (readFormatVersion(in) < VERSION) return null;
+            int blockVersion = (int) readVarLong(in);
+            String hash = readHash(in);
+            String previousHash = readHash(in);
+            long timeStamp = unZigZag(readVarLong(in));
+            int nonce = (int) unZigZag(readVarLong(in));
+            String merkleRoot = readHash(in);
+            int txCount = (int) readVarLong(in);
+            return new BlockHeader(height, blockVersion, hash, previousHash, timeStamp, nonce, txCount, merkleRoot);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static byte readFormatVersion(ByteBuffer in) {
+        if (in.get() != MAGIC) throw new IllegalArgumentException("Kein Binär-Block");
+        byte version = in.get();
+        if (version < VERSION_WITHOUT_BLOCK_VERSION || version > VERSION) {
+            throw new IllegalArgumentException("Unbekannte Formatversion: " + version);
+        }
+        return version;
+    }
+
+    private static String readHash(ByteBuffer in) {
+        byte tag = in.get();
+        if (tag == HASH_TEXT) {
+            return new String(readBytes(in), StandardCharsets.UTF_8);
+        }
+        byte[] raw = new byte[32];
+        in.get(raw);
+        return StringUtil.toHex(raw);
+    }
+
+    private static double readAmount(ByteBuffer in) {
+        byte tag = in.get();
+        if (tag == AMOUNT_MILLI) {
+            return unZigZag(readVarLong(in)) / 1000.0;
+        }
+        return Double.longBitsToDouble(in.getLong());
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] data = new byte[(int) readVarLong(in)];
+        in.get(data);
+        return data;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static boolean isHex64(String s) {
+        if (s == null || s.length() != 64) return false;
+        for (int i = 0; i < 64; i++) {
+            char c = s.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return false;
+        }
+        return true;
+    }
+}
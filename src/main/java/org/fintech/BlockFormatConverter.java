@@ -0,0 +1,31 @@
+package org.fintech;
+
+/**
+ * Kommandozeilen-Konverter zwischen JSON und dem Binärformat des Block-Logs.
+ *
+ * Aufruf:
+ *   export &lt;datei.json&gt;      – gespeicherte Kette als JSON exportieren
+ *   import &lt;datei.json&gt;      – Block-Log aus einer JSON-Datei neu aufbauen
+ *   convert binary|json      – alle Records des Logs im Zielformat neu schreiben
+ */
+public class BlockFormatConverter {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Verwendung: export <datei.json> | import <datei.json> | convert binary|json");
+            return;
+        }
+
+        try {
+            switch (args[0]) {
+                case "export" -> System.out.println(BlockchainPersistence.exportJson(args[1]) + " Blöcke nach " + args[1] + " exportiert.");
+                case "import" -> System.out.println(BlockchainPersistence.importJson(args[1]) + " Blöcke aus " + args[1] + " importiert.");
+                case "convert" -> BlockchainPersistence.convertStorage(
+                        BlockchainPersistence.StorageFormat.valueOf(args[1].toUpperCase()));
+                default -> System.out.println("Unbekannter Befehl: " + args[0]);
+            }
+        } finally {
+            BlockchainPersistence.close();
+        }
+    }
+}
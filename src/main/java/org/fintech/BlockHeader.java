@@ -0,0 +1,14 @@
+package org.fintech;
+
+/**
+ * Kompakter Kopf eines Blocks ohne Transaktionen (ca. 300 Byte auf dem Heap statt des ganzen Blocks).
+ * Reicht für Blocklisten und Verkettung; die Transaktionen lädt {@link Blockchain#getBlock} bei Bedarf.
+ */
+public record BlockHeader(int height, int version, String hash, String previousHash,
+                          long timeStamp, int nonce, int txCount, String merkleRoot) {
+
+    public static BlockHeader of(int height, Block block) {
+        return new BlockHeader(height, block.getVersion(), block.getHash(), block.getPreviousHash(),
+                block.getTimeStamp(), block.getNonce(), block.getTransactionCount(), block.getMerkleRoot());
+    }
+}
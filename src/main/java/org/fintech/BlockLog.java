@@ -0,0 +1,426 @@
+package org.fintech;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only Block-Log in Segmentdateien.
+ *
+ * Jeder Block ist ein Record [Länge (int) | CRC32 (int) | Payload]. Ein Anhängen schreibt
+ * nur diesen einen Record plus einen Eintrag fester Breite (Segment, Offset) in den Index.
+ * Beim Öffnen wird ein abgerissenes Ende (Absturz während des Schreibens) erkannt und
+ * abgeschnitten; fehlende Indexeinträge werden aus den Segmenten nachgetragen.
+ *
+ * Nach einem Snapshot können alte Segmente entfernt werden ({@link #pruneBelow}). Das Log beginnt
+ * dann bei einer Basishöhe (Datei blocks.base); Höhen bleiben absolut, der Index enthält nur noch
+ * Einträge ab der Basis.
+ */
+public class BlockLog implements Closeable {
+
+    static final String INDEX_FILE = "blocks.idx";
+    static final String BASE_FILE = "blocks.base";  // int Basishöhe + int erstes Segment
+    static final int INDEX_ENTRY_BYTES = 12;   // int segment + long offset
+    static final int RECORD_HEADER_BYTES = 8;  // int länge + int crc
+
+    // Segmente sind die Einheit beim Kürzen – klein genug, damit ein Snapshot auch Platz freigibt
+    private static final long SEGMENT_MAX_BYTES = 1024 * 1024;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private final Path dir;
+    private FileChannel index;
+    private FileChannel activeSegment;
+    private int activeSegmentNo;
+    private long activeSize;
+    private int height;
+    private long totalBytes;
+    private int baseHeight;
+    private int firstSegmentNo;
+
+    private BlockLog(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        int[] base = readBase(dir);
+        this.baseHeight = base[0];
+        this.firstSegmentNo = base[1];
+        completePendingPrune();
+        this.index = openIndex();
+        recover();
+    }
+
+    public static BlockLog open(Path dir) throws IOException {
+        return new BlockLog(dir);
+    }
+
+    static Path segmentPath(Path dir, int segmentNo) {
+        return dir.resolve(String.format("blocks-%05d.dat", segmentNo));
+    }
+
+    // --- ÖFFENTLICHE API ---
+
+    public synchronized int size() {
+        return height;
+    }
+
+    /** Höhe des ersten noch vorhandenen Blocks (0, wenn nie gekürzt wurde). */
+    public synchronized int getBaseHeight() {
+        return baseHeight;
+    }
+
+    public synchronized long sizeInBytes() {
+        return totalBytes;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Hängt einen Block-Record an. Kosten: ein Record-Write plus 12 Byte Index – unabhängig von der Kettenlänge.
+     */
+    public synchronized void append(byte[] payload) throws IOException {
+        int recordBytes = RECORD_HEADER_BYTES + payload.length;
+        if (activeSize > 0 && activeSize + recordBytes > SEGMENT_MAX_BYTES) {
+            openActiveSegment(activeSegmentNo + 1);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+        long offset = activeSize;
+        writeFully(activeSegment, record, offset);
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putInt(activeSegmentNo).putLong(offset).flip();
+        writeFully(index, entry, indexPosition(height));
+
+        activeSize += recordBytes;
+        totalBytes += recordBytes;
+        height++;
+    }
+
+    /**
+     * Schneidet das Log auf die ersten {@code newHeight} Blöcke zurück (z.B. nach resetChain).
+     * Ein gekürztes Log kann nur bis zur Basis oder ganz (auf 0, z.B. beim Import) geleert werden.
+     */
+    public synchronized void truncate(int newHeight) throws IOException {
+        if (newHeight >= height) return;
+        if (newHeight < baseHeight && newHeight != 0) {
+            throw new IllegalArgumentException("Block-Log beginnt bei Höhe " + baseHeight + ", Kürzen auf " + newHeight + " nicht möglich");
+        }
+
+        int keep = Math.max(newHeight, baseHeight);
+        if (keep < height) {
+            long[] entry = readIndexEntry(keep);
+            int segmentNo = (int) entry[0];
+            long offset = keep > baseHeight ? entry[1] : 0;
+
+            deleteSegmentsAfter(segmentNo);
+            openActiveSegment(segmentNo);
+            activeSegment.truncate(offset);
+            activeSize = offset;
+            index.truncate(indexPosition(keep));
+        }
+        if (newHeight < baseHeight) {
+            // Leeres Log beginnt wieder bei Höhe 0 (im bisherigen ersten Segment)
+            baseHeight = 0;
+            writeBase();
+        }
+        height = newHeight;
+        totalBytes = computeTotalBytes();
+    }
+
+    /**
+     * Entfernt alle Segmente, deren Blöcke vollständig unter minHeight liegen. Gekürzt wird segmentweise:
+     * die neue Basis ist der erste Block des Segments, in dem minHeight liegt (der letzte Block bleibt immer).
+     * Mit archiveDir werden die Segmente dorthin verschoben statt gelöscht.
+     * @return neue Basishöhe
+     */
+    public synchronized int pruneBelow(int minHeight, Path archiveDir) throws IOException {
+        int target = Math.min(minHeight, height - 1);
+        if (target <= baseHeight) return baseHeight;
+
+        int segmentNo = (int) readIndexEntry(target)[0];
+        if (segmentNo == firstSegmentNo) return baseHeight;
+        int newBase = target;
+        while (newBase > baseHeight && readIndexEntry(newBase - 1)[0] == segmentNo) {
+            newBase--;
+        }
+
+        // 1. Neuer Index ab der neuen Basis (temporär)
+        Path indexTmp = dir.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel tmp = FileChannel.open(indexTmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = indexPosition(newBase);
+            long end = indexPosition(height);
+            while (position < end) {
+                position += index.transferTo(position, end - position, tmp);
+            }
+            tmp.force(true);
+        }
+
+        // 2. Basis festschreiben (Commit-Punkt), 3. Index ersetzen
+        int oldFirstSegment = firstSegmentNo;
+        baseHeight = newBase;
+        firstSegmentNo = segmentNo;
+        writeBase();
+        index.close();
+        Files.move(indexTmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = openIndex();
+
+        // 4. Alte Segmente löschen bzw. archivieren
+        if (archiveDir != null) Files.createDirectories(archiveDir);
+        for (int s = oldFirstSegment; s < firstSegmentNo; s++) {
+            Path segment = segmentPath(dir, s);
+            if (archiveDir != null && Files.exists(segment)) {
+                Files.move(segment, archiveDir.resolve(segment.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(segment);
+            }
+        }
+        totalBytes = computeTotalBytes();
+        return newBase;
+    }
+
+    /**
+     * Liest alle Payloads in Reihenfolge der Höhe (sequenziell pro Segment).
+     */
+    public synchronized List<byte[]> readAll() throws IOException {
+        List<byte[]> payloads = new ArrayList<>(height);
+        int currentSegment = -1;
+        FileChannel channel = null;
+        try {
+            for (int h = baseHeight; h < height; h++) {
+                long[] entry = readIndexEntry(h);
+                if (entry[0] != currentSegment) {
+                    if (channel != null) channel.close();
+                    currentSegment = (int) entry[0];
+                    channel = FileChannel.open(segmentPath(dir, currentSegment), StandardOpenOption.READ);
+                }
+                payloads.add(readRecord(channel, entry[1]));
+            }
+        } finally {
+            if (channel != null) channel.close();
+        }
+        return payloads;
+    }
+
+    /** Schreibt alle gepufferten Daten auf das Speichermedium. */
+    public synchronized void sync() throws IOException {
+        activeSegment.force(false);
+        index.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        activeSegment.close();
+        index.close();
+    }
+
+    // --- RECOVERY ---
+
+    // Abbruch während pruneBelow: war die Basis schon festgeschrieben, gilt der neue Index, sonst der alte
+    private void completePendingPrune() throws IOException {
+        Path indexTmp = dir.resolve(INDEX_FILE + ".tmp");
+        if (!Files.exists(indexTmp)) return;
+
+        int tmpFirstSegment = -1;
+        try (FileChannel tmp = FileChannel.open(indexTmp, StandardOpenOption.READ)) {
+            if (tmp.size() >= INDEX_ENTRY_BYTES) {
+                ByteBuffer first = ByteBuffer.allocate(Integer.BYTES);
+                readFully(tmp, first, 0);
+                tmpFirstSegment = first.flip().getInt();
+            }
+        }
+        if (tmpFirstSegment == firstSegmentNo) {
+            Files.move(indexTmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Block-Log: abgebrochenes Kürzen ab Höhe " + baseHeight + " abgeschlossen.");
+        } else {
+            Files.delete(indexTmp);
+        }
+    }
+
+    private void recover() throws IOException {
+        // 1. Unvollständigen letzten Indexeintrag verwerfen
+        int entries = (int) (index.size() / INDEX_ENTRY_BYTES);
+
+        // 2. Von hinten den letzten Eintrag suchen, dessen Record vollständig und unbeschädigt ist
+        int valid = entries;
+        while (valid > 0 && !isValidRecord(readIndexEntry(baseHeight + valid - 1))) {
+            valid--;
+        }
+        index.truncate((long) valid * INDEX_ENTRY_BYTES);
+        height = baseHeight + valid;
+
+        // 3. Ab dem Ende des letzten gültigen Records weiterscannen (Records ohne Indexeintrag)
+        int segmentNo = firstSegmentNo;
+        long offset = 0;
+        if (valid > 0) {
+            long[] last = readIndexEntry(height - 1);
+            segmentNo = (int) last[0];
+            try (FileChannel ch = FileChannel.open(segmentPath(dir, segmentNo), StandardOpenOption.READ)) {
+                offset = last[1] + RECORD_HEADER_BYTES + readLength(ch, last[1]);
+            }
+        }
+
+        int recovered = 0;
+        while (Files.exists(segmentPath(dir, segmentNo))) {
+            try (FileChannel ch = FileChannel.open(segmentPath(dir, segmentNo), StandardOpenOption.READ)) {
+                while (offset < ch.size()) {
+                    byte[] payload = tryReadRecord(ch, offset);
+                    if (payload == null) break;
+                    ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+                    entry.putInt(segmentNo).putLong(offset).flip();
+                    writeFully(index, entry, indexPosition(height));
+                    height++;
+                    recovered++;
+                    offset += RECORD_HEADER_BYTES + payload.length;
+                }
+                if (offset < ch.size()) break; // Abgerissener Record → hier endet das Log
+            }
+            if (!Files.exists(segmentPath(dir, segmentNo + 1))) break;
+            segmentNo++;
+            offset = 0;
+        }
+
+        // 4. Alles hinter dem letzten gültigen Record abschneiden
+        deleteSegmentsAfter(segmentNo);
+        openActiveSegment(segmentNo);
+        if (activeSegment.size() > offset) {
+            System.out.printf("Block-Log: beschädigtes Ende in Segment %d ab Offset %d abgeschnitten.%n", segmentNo, offset);
+            activeSegment.truncate(offset);
+        }
+        activeSize = offset;
+        totalBytes = computeTotalBytes();
+
+        if (recovered > 0) {
+            System.out.println("Block-Log: " + recovered + " Indexeinträge aus den Segmenten wiederhergestellt.");
+        }
+    }
+
+    private boolean isValidRecord(long[] entry) throws IOException {
+        Path segment = segmentPath(dir, (int) entry[0]);
+        if (!Files.exists(segment)) return false;
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return tryReadRecord(ch, entry[1]) != null;
+        }
+    }
+
+    // --- HILFSMETHODEN ---
+
+    private void openActiveSegment(int segmentNo) throws IOException {
+        if (activeSegment != null) activeSegment.close();
+        activeSegmentNo = segmentNo;
+        activeSegment = FileChannel.open(segmentPath(dir, segmentNo),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSize = activeSegment.size();
+    }
+
+    private void deleteSegmentsAfter(int segmentNo) throws IOException {
+        int next = segmentNo + 1;
+        while (Files.deleteIfExists(segmentPath(dir, next))) {
+            next++;
+        }
+    }
+
+    private long computeTotalBytes() throws IOException {
+        long total = 0;
+        for (int s = firstSegmentNo; s <= activeSegmentNo; s++) {
+            Path segment = segmentPath(dir, s);
+            if (Files.exists(segment)) total += Files.size(segment);
+        }
+        return total;
+    }
+
+    // Position des Indexeintrags für die absolute Höhe h
+    private long indexPosition(int h) {
+        return (long) (h - baseHeight) * INDEX_ENTRY_BYTES;
+    }
+
+    private FileChannel openIndex() throws IOException {
+        return FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    static int[] readBase(Path dir) throws IOException {
+        Path file = dir.resolve(BASE_FILE);
+        if (!Files.exists(file)) return new int[] { 0, 0 };
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new int[] { buffer.getInt(), buffer.getInt() };
+    }
+
+    // Atomar ersetzen, damit Basis und erstes Segment immer zusammenpassen
+    private void writeBase() throws IOException {
+        Path tmp = dir.resolve(BASE_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(ch, ByteBuffer.allocate(8).putInt(baseHeight).putInt(firstSegmentNo).flip(), 0);
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(BASE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    long[] readIndexEntry(int h) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        readFully(index, entry, indexPosition(h));
+        entry.flip();
+        return new long[] { entry.getInt(), entry.getLong() };
+    }
+
+    private static int readLength(FileChannel ch, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(ch, header, offset);
+        return header.flip().getInt();
+    }
+
+    private static byte[] readRecord(FileChannel ch, long offset) throws IOException {
+        byte[] payload = tryReadRecord(ch, offset);
+        if (payload == null) {
+            throw new IOException("Beschädigter Block-Record bei Offset " + offset);
+        }
+        return payload;
+    }
+
+    // Liefert null, wenn der Record unvollständig ist oder die Prüfsumme nicht passt
+    private static byte[] tryReadRecord(FileChannel ch, long offset) throws IOException {
+        if (offset + RECORD_HEADER_BYTES > ch.size()) return null;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        readFully(ch, header, offset);
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || length > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + length > ch.size()) return null;
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(ch, payload, offset + RECORD_HEADER_BYTES);
+        return crc(payload.array()) == checksum ? payload.array() : null;
+    }
+
+    static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += ch.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = ch.read(buffer, position);
+            if (n < 0) throw new IOException("Unerwartetes Dateiende bei Offset " + position);
+            position += n;
+        }
+    }
+}
@@ -1,18 +1,39 @@
 package org.fintech;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 public class Blockchain {
-    private final List<Block> chain = new ArrayList<>();
+    // Blöcke, die nur im Speicher liegen (bei einer gespeicherten Kette: der noch nicht gespeicherte Rest)
+    private final List<Block> memoryBlocks = new ArrayList<>();
+    // 🌟 NEU: Gemappter Store für den bereits gespeicherten Teil der Kette (null = reine Speicher-Kette)
+    private MappedBlockStore store;
+    private int storedHeight;
+    private Block storedTip;
+
+    private final List<Block> chain = new ChainView();
+    // 🌟 NEU: Kompakte Header (Index = Höhe - headerBase); gespeicherte werden erst bei Bedarf aus dem Store gelesen
+    private final List<BlockHeader> headers = new ArrayList<>();
+    private int headerBase;
+    // 🌟 NEU: Adresse → (Höhe, txIndex) für Wallet-Verlauf in O(Treffer)
+    private final AddressIndex addressIndex;
+    // 🌟 NEU: Checkpoint der letzten erfolgreichen Prüfung – danach werden nur neue Blöcke geprüft
+    private int validatedHeight = 0;
+    private String validatedTipHash;
+    // 🌟 NEU: Letzter Zustands-Snapshot – Blöcke darunter braucht der Ledger nicht mehr
+    private volatile StateSnapshot snapshot;
     private final int difficulty;
     private final String name;
 
     public Blockchain(String name, int difficulty) {
         this.name = name;
         this.difficulty = difficulty;
+        this.addressIndex = new AddressIndex();
 
-        if (chain.isEmpty()) {
+        if (memoryBlocks.isEmpty()) {
             Wallet supplyWallet = WalletManager.SUPPLY_WALLET;
 
             List<Transaction> genesisTxs = new ArrayList<>();
@@ -21,7 +42,9 @@ public class Blockchain {
 
             Block genesis = new Block(genesisTxs, "0");
             genesis.mineBlock(difficulty);
-            chain.add(genesis);
+            memoryBlocks.add(genesis);
+            headers.add(BlockHeader.of(0, genesis));
+            addressIndex.add(0, genesis);
             System.out.println("Genesis-Block erstellt. 10.000.000.000 SC an Supply Wallet: " + supplyWallet.getAddress().substring(0,16) + "...");
         }
     }
@@ -29,22 +52,120 @@ public class Blockchain {
     public Blockchain(List<Block> loadedBlocks, String name, int difficulty) {
         this.name = name;
         this.difficulty = difficulty;
-        this.chain.addAll(loadedBlocks);
+        this.memoryBlocks.addAll(loadedBlocks);
+        this.addressIndex = new AddressIndex();
+        for (int h = 0; h < loadedBlocks.size(); h++) {
+            headers.add(BlockHeader.of(h, loadedBlocks.get(h)));
+            addressIndex.add(h, loadedBlocks.get(h));
+        }
+    }
+
+    /**
+     * Kette auf Basis des gemappten Block-Stores: beim Start wird kein einziger Block deserialisiert,
+     * Blöcke werden erst beim Zugriff per Höhe gelesen.
+     */
+    public Blockchain(MappedBlockStore store, String name, int difficulty) {
+        this(store, new AddressIndex(), name, difficulty);
     }
 
-    public void addBlock(List<Transaction> transactions) {
-        Block last = chain.get(chain.size() - 1);
+    /**
+     * Wie oben, mit einem bereits (teilweise) geladenen Adress-Index; fehlende Blöcke werden nachindiziert.
+     */
+    Blockchain(MappedBlockStore store, AddressIndex addressIndex, String name, int difficulty) {
+        this.name = name;
+        this.difficulty = difficulty;
+        this.store = store;
+        this.storedHeight = store.size();
+        this.addressIndex = addressIndex;
+        this.headerBase = store.getBaseHeight();
+        headers.addAll(Collections.nCopies(storedHeight - headerBase, null));
+        if (addressIndex.getHeight() < store.getBaseHeight()) addressIndex.setHeight(store.getBaseHeight());
+        for (int h = addressIndex.getHeight(); h < storedHeight; h++) {
+            addressIndex.add(h, store.getBlock(h));
+        }
+    }
+
+    public Block addBlock(List<Transaction> transactions) {
+        Block last = getLatestBlock();
         Block newBlock = new Block(transactions, last.getHash());
         newBlock.mineBlock(difficulty);
-        chain.add(newBlock);
+        synchronized (this) {
+            memoryBlocks.add(newBlock);
+            headers.add(BlockHeader.of(size() - 1, newBlock));
+            addressIndex.add(size() - 1, newBlock);
+        }
+        return newBlock;
+    }
+
+    public synchronized Block getLatestBlock() {
+        if (!memoryBlocks.isEmpty()) return memoryBlocks.get(memoryBlocks.size() - 1);
+        if (storedTip == null) storedTip = store.getBlock(storedHeight - 1);
+        return storedTip;
+    }
+
+    // Block N in O(1) – gespeicherte Blöcke kommen direkt aus dem gemappten Store
+    public Block getBlock(int height) {
+        MappedBlockStore source;
+        synchronized (this) {
+            if (height >= storedHeight) return memoryBlocks.get(height - storedHeight);
+            if (height == storedHeight - 1 && storedTip != null) return storedTip;
+            source = store;
+        }
+        // Dekodieren außerhalb des Locks, damit parallele Leser (z.B. die Kettenprüfung) nicht warten
+        return source.getBlock(height);
     }
 
-    public void resetChain() {
-        if (this.chain.size() > 1) {
+    public synchronized int size() {
+        return storedHeight + memoryBlocks.size();
+    }
+
+    /** Header von Block N, ohne die Transaktionen zu laden (einmal gelesen, bleibt er auf dem Heap). */
+    public BlockHeader getHeader(int height) {
+        MappedBlockStore source;
+        synchronized (this) {
+            if (height < headerBase || height >= size()) {
+                throw new IndexOutOfBoundsException("Kein Header für Block #" + height + " (Basis " + headerBase + ", Höhe " + size() + ")");
+            }
+            BlockHeader header = headers.get(height - headerBase);
+            if (header != null) return header;
+            source = store;
+        }
+        BlockHeader header = source.getHeader(height);
+        synchronized (this) {
+            int i = height - headerBase;
+            if (i >= 0 && i < headers.size() && headers.get(i) == null) headers.set(i, header);
+        }
+        return header;
+    }
+
+    /** Header der Blöcke [from, to), z.B. für Blocklisten. */
+    public List<BlockHeader> getHeaders(int from, int to) {
+        List<BlockHeader> result = new ArrayList<>(Math.max(0, to - from));
+        for (int h = from; h < to; h++) {
+            result.add(getHeader(h));
+        }
+        return result;
+    }
+
+    public synchronized void resetChain() {
+        if (getBaseHeight() > 0) {
+            System.err.println("--- Kette ist ab Block #" + getBaseHeight() + " gekürzt, der Genesis Block existiert nicht mehr. Kein Reset. ---");
+            return;
+        }
+        if (size() > 1) {
             // 🛑 WICHTIG: Entfernt alle Blöcke ab Index 1 (behält den Genesis Block bei Index 0)
-            this.chain.subList(1, this.chain.size()).clear();
+            if (storedHeight > 0) {
+                storedHeight = 1;
+                storedTip = null;
+                memoryBlocks.clear();
+            } else {
+                memoryBlocks.subList(1, memoryBlocks.size()).clear();
+            }
+            headers.subList(1, headers.size()).clear();
+            addressIndex.truncate(1);
+            validatedHeight = 0;
             System.out.println("--- Kette zurückgesetzt. Alle Blöcke außer Genesis (#0) wurden gelöscht. ---");
-        } else if (this.chain.size() == 1) {
+        } else if (size() == 1) {
             System.out.println("--- Kette enthält nur den Genesis Block. Keine Aktion erforderlich. ---");
         } else {
             // Dieser Fall sollte bei korrekt geladener Blockchain nicht eintreten.
@@ -52,20 +173,55 @@ public class Blockchain {
         }
     }
 
+    // Prüft nur die Blöcke seit dem letzten Checkpoint
     public boolean isChainValid() {
-        for (int i = 1; i < chain.size(); i++) {
-            Block current = chain.get(i);
-            Block prev = chain.get(i - 1);
-            if (!current.getHash().equals(current.calculateHash())) return false;
-            if (!current.getPreviousHash().equals(prev.getHash())) return false;
-            if (!current.getHash().startsWith("0".repeat(difficulty))) return false;
+        return validate(false).valid();
+    }
+
+    /**
+     * Prüft Hashes, Verkettung und Signaturen. Ohne full nur ab dem Checkpoint; ist der Checkpoint nicht
+     * mehr Teil der Kette (Reset, andere Kette geladen), wird automatisch komplett geprüft.
+     * Eine gekürzte Kette wird ab ihrer Basis geprüft.
+     */
+    public ChainValidator.Result validate(boolean full) {
+        int to = size();
+        int base = getBaseHeight();
+        int from = Math.max(base, full ? 0 : checkpointHeight(to));
+
+        ChainValidator.Result result = ChainValidator.validate(chain, from, to, difficulty, base);
+        if (!result.valid()) {
+            System.err.println(result);
+            return result;
         }
-        return true;
+
+        // 🌟 NEU: Signaturen aller Transaktionen parallel prüfen
+        SignatureVerifier.Report report = SignatureVerifier.verify(chain, from, to);
+        if (!report.isValid()) {
+            SignatureVerifier.printReport(report);
+            SignatureVerifier.Failure first = report.getFailures().get(0);
+            return new ChainValidator.Result(false, from, to, first.blockIndex(), first.reason(), result.nanos());
+        }
+
+        synchronized (this) {
+            validatedHeight = to;
+            validatedTipHash = to > 0 ? getBlock(to - 1).getHash() : null;
+        }
+        return result;
+    }
+
+    // Höhe, ab der noch geprüft werden muss (0, wenn der Checkpoint nicht mehr passt)
+    private synchronized int checkpointHeight(int currentSize) {
+        if (validatedHeight <= getBaseHeight() || validatedHeight > currentSize) return 0;
+        return getBlock(validatedHeight - 1).getHash().equals(validatedTipHash) ? validatedHeight : 0;
+    }
+
+    public synchronized int getValidatedHeight() {
+        return validatedHeight;
     }
 
     public void printChain() {
         System.out.println("=== " + name + " (Difficulty: " + difficulty + ") ===");
-        for (Block b : chain) {
+        for (Block b : chain.subList(getBaseHeight(), chain.size())) {
             System.out.println(b);
             System.out.println("  Transaktionen:");
             for (Transaction tx : b.getTransactions()) {
@@ -82,4 +238,63 @@ public class Blockchain {
     }
 
     public List<Block> getChain() { return chain; }
+
+    public AddressIndex getAddressIndex() { return addressIndex; }
+
+    /** Höhe des ersten noch vorhandenen Blocks (0, solange nichts entfernt wurde). */
+    public synchronized int getBaseHeight() {
+        return store != null ? store.getBaseHeight() : 0;
+    }
+
+    public StateSnapshot getSnapshot() { return snapshot; }
+
+    void setSnapshot(StateSnapshot snapshot) { this.snapshot = snapshot; }
+
+    // Nach BlockLog.pruneBelow: Verweise auf entfernte Blöcke aus dem Adress-Index nehmen
+    void onPruned(int newBase) {
+        addressIndex.pruneBelow(newBase);
+        synchronized (this) {
+            if (newBase > headerBase) {
+                headers.subList(0, Math.min(newBase - headerBase, headers.size())).clear();
+                headerBase = newBase;
+            }
+        }
+    }
+
+    /** Alle Transaktionen einer Adresse in Kettenreihenfolge (über den Adress-Index). */
+    public List<Transaction> getTransactionsFor(String address) {
+        return addressIndex.transactions(address, this);
+    }
+
+    public int countTransactionsFor(String address) {
+        return addressIndex.count(address);
+    }
+
+    // --- Hooks für BlockchainPersistence ---
+
+    synchronized MappedBlockStore getStore() { return store; }
+    synchronized int getStoredHeight() { return storedHeight; }
+    synchronized List<Block> getUnsavedBlocks() { return new ArrayList<>(memoryBlocks); }
+
+    // Nach dem Speichern liegen die ersten savedBlocks Speicher-Blöcke im Log; nur der Tip bleibt gecacht
+    synchronized void markSaved(MappedBlockStore savedStore, int savedBlocks) {
+        Block lastSaved = savedBlocks > 0 ? memoryBlocks.get(savedBlocks - 1) : storedTip;
+        memoryBlocks.subList(0, savedBlocks).clear();
+        this.store = savedStore;
+        this.storedHeight = savedStore.size();
+        this.storedTip = lastSaved;
+    }
+
+    // Nur-Lese-Sicht auf die gesamte Kette (Store + Speicher), Zugriff per Index in O(1)
+    private class ChainView extends AbstractList<Block> implements RandomAccess {
+        @Override
+        public Block get(int index) {
+            return getBlock(index);
+        }
+
+        @Override
+        public int size() {
+            return Blockchain.this.size();
+        }
+    }
 }
\ No newline at end of file
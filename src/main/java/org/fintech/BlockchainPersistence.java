@@ -3,52 +3,449 @@ package org.fintech;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 public class BlockchainPersistence {
 
+    // Altes Format (komplette Kette als ein JSON-Array) – wird nur noch einmalig migriert
     private static final String FILE_NAME = "blockchain.json";
+    // 🌟 NEU: Append-only Block-Log (Segmente + Offset-Index)
+    private static final String LOG_DIR = "blockchain-log";
+    private static final String DICTIONARY_FILE = "addresses.dict";
+    // 🌟 NEU: Posting-Listen des Adress-Index (Adresse → Höhe/txIndex)
+    private static final String ADDRESS_INDEX_FILE = "address-index.dat";
+    // 🌟 NEU: Zustands-Snapshots und Archiv für entfernte Segmente (im Log-Verzeichnis)
+    private static final String SNAPSHOT_DIR = "snapshots";
+    private static final String ARCHIVE_DIR = "archive";
+
+    // 🌟 NEU: Format neuer Records im Log (beide Formate können gemischt gelesen werden)
+    public enum StorageFormat { BINARY, JSON }
+    private static StorageFormat storageFormat = StorageFormat.BINARY;
+
+    // 🌟 NEU: Aufbewahrung beim Kürzen – Blöcke unter dem Snapshot löschen oder ins Archiv verschieben
+    public enum PruneMode { DELETE, ARCHIVE }
+    private static PruneMode pruneMode = PruneMode.DELETE;
+    // So viele Blöcke unterhalb des Snapshots bleiben mindestens erhalten
+    private static int retainBlocks = 200;
+
+    // 🌟 NEU: Schreibdauer für die Metrik-Registry
+    private static final LatencyHistogram SAVE_TIME = Metrics.histogram("mychain_blockchain_save_seconds", "Dauer von saveBlockchain");
+
     private static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(Block.class, new Block.BlockAdapter())  // WICHTIG!
             .create();
 
-    // Blockchain speichern
-    public static void saveBlockchain(Blockchain blockchain) {
-        List<Block> blocks = blockchain.getChain();
-        String json = gson.toJson(blocks);
+    // Verzeichnis des Block-Logs; Snapshots und die alte blockchain.json liegen relativ dazu
+    private static Path logDirectory = Paths.get(LOG_DIR);
+    private static BlockLog log;
+    // 🌟 NEU: Gemappter Lesezugriff auf dasselbe Log (wahlfreier Zugriff per Blockhöhe)
+    private static MappedBlockStore store;
+    private static AddressDictionary dictionary;
+    private static BlockCodec codec;
+    private static AddressIndexLog indexLog;
+    // Beim Öffnen aus dem indexLog gelesener Index – geht an die erste geladene Kette, spätere lesen neu (takeIndex)
+    private static AddressIndex loadedIndex;
+    // In diesem Prozess bereits signaturgeprüfte Höhe samt Hash des Blocks darunter – weitere Ladevorgänge prüfen nur den Rest
+    private static int verifiedHeight = 0;
+    private static String verifiedTipHash;
+
+    private static synchronized BlockLog getLog() throws IOException {
+        if (log == null) {
+            log = BlockLog.open(logDirectory);
+            dictionary = AddressDictionary.open(log.getDirectory().resolve(DICTIONARY_FILE));
+            codec = new BlockCodec(dictionary);
+            // Der Store bleibt über close() hinweg dieselbe Instanz, damit geladene Ketten gültig bleiben
+            if (store == null) store = new MappedBlockStore(log.getDirectory(), log.size());
+            store.rebase(log.getBaseHeight());
+            store.refresh(log.size());
+            indexLog = AddressIndexLog.open(log.getDirectory().resolve(ADDRESS_INDEX_FILE));
+            loadedIndex = new AddressIndex();
+            indexLog.readInto(loadedIndex, dictionary, log.getBaseHeight(), log.size());
+        }
+        return log;
+    }
 
-        try (Writer writer = new FileWriter(FILE_NAME)) {
-            writer.write(json);
+    /**
+     * Blockchain speichern: Es werden nur die Blöcke angehängt, die noch nicht im Log stehen.
+     * Ist die Kette kürzer als das Log (nach resetChain), wird das Log entsprechend gekürzt.
+     */
+    public static synchronized void saveBlockchain(Blockchain blockchain) {
+        long start = System.nanoTime();
+        try {
+            BlockLog blockLog = getLog();
+
+            // Gespeicherter Teil der Kette, der bereits im Log steht (0 für eine reine Speicher-Kette)
+            int keep = blockchain.getStore() == store ? blockchain.getStoredHeight() : 0;
+            if (blockLog.size() > keep) {
+                store.release();
+                if (keep < blockLog.getBaseHeight()) {
+                    // Andere Kette als im Log: dessen Snapshots gelten nicht mehr
+                    StateSnapshot.deleteAll(snapshotDir());
+                }
+                blockLog.truncate(keep);
+                store.rebase(blockLog.getBaseHeight());
+            }
+            if (indexLog.getHeight() > blockLog.size()) {
+                indexLog.truncate(blockLog.size());
+            }
+            catchUpIndex(null);
+
+            List<Block> unsaved = blockchain.getUnsavedBlocks();
+            for (Block block : unsaved) {
+                indexLog.append(blockLog.size(), block, dictionary);
+                blockLog.append(encode(block));
+            }
+            store.refresh(blockLog.size());
+            blockchain.markSaved(store, unsaved.size());
         } catch (IOException e) {
             System.err.println("Fehler beim Speichern: " + e.getMessage());
         }
+        SAVE_TIME.record(System.nanoTime() - start);
     }
 
-    // Blockchain laden (oder neue erstellen, falls keine Datei)
-    public static Blockchain loadBlockchain(String name, int difficulty) {
-        File file = new File(FILE_NAME);
-        if (!file.exists()) {
-            System.out.println("Keine gespeicherte Blockchain gefunden → neue wird erstellt.");
-            return new Blockchain(name, difficulty);
+    /**
+     * Schreibt einen Snapshot (Balancen aller Adressen + Preis) bei der gespeicherten Höhe der Kette.
+     * Ab dann spielt der Start nur noch die Blöcke danach nach.
+     */
+    public static synchronized StateSnapshot createSnapshot(Blockchain blockchain, double price) {
+        try {
+            saveBlockchain(blockchain);
+            int height = blockchain.getStoredHeight();
+            if (height == 0) return null;
+
+            long start = System.nanoTime();
+            StateSnapshot snapshot = new StateSnapshot(height, blockchain.getBlock(height - 1).getHash(),
+                    System.currentTimeMillis(), price, WalletManager.replayBalances(blockchain, height));
+            snapshot.write(snapshotDir());
+            blockchain.setSnapshot(snapshot);
+            System.out.printf("Snapshot bei Höhe %d geschrieben: %d Adressen, Preis %.4f USD (%.1f ms)%n",
+                    height, snapshot.balances().size(), price, (System.nanoTime() - start) / 1_000_000.0);
+            return snapshot;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schreiben des Snapshots: " + e.getMessage());
+            return null;
         }
+    }
 
-        try (Reader reader = new FileReader(FILE_NAME)) {
-            Type listType = new TypeToken<ArrayList<Block>>(){}.getType();
-            List<Block> loadedBlocks = gson.fromJson(reader, listType);
+    /**
+     * Entfernt (bzw. archiviert) die Segmente unterhalb des ältesten aufbewahrten Snapshots, bis auf
+     * retainBlocks Blöcke – so bleibt auch der Rückfall-Snapshot über der Basis und damit ladbar.
+     * Ohne Snapshot wird nichts entfernt.
+     * @return Basishöhe der Kette danach
+     */
+    public static synchronized int prune(Blockchain blockchain) {
+        StateSnapshot snapshot = blockchain.getSnapshot();
+        try {
+            BlockLog blockLog = getLog();
+            int before = blockLog.getBaseHeight();
+            if (snapshot == null || blockchain.getStore() != store) return before;
+            int oldest = StateSnapshot.oldestHeight(snapshotDir());
+            int keepFrom = (oldest >= 0 ? Math.min(oldest, snapshot.height()) : snapshot.height()) - retainBlocks;
+            if (keepFrom <= before) {
+                return before;
+            }
+
+            long bytesBefore = blockLog.sizeInBytes();
+            store.release();
+            Path archive = pruneMode == PruneMode.ARCHIVE ? blockLog.getDirectory().resolve(ARCHIVE_DIR) : null;
+            int base = blockLog.pruneBelow(keepFrom, archive);
+            store.rebase(base);
+            store.refresh(blockLog.size());
+            if (base > before) {
+                indexLog.pruneBelow(base);
+                blockchain.onPruned(base);
+                System.out.printf("Block-Log ab Block #%d %s: %.1f KB → %.1f KB%n", base,
+                        archive != null ? "archiviert" : "gekürzt", bytesBefore / 1024.0, blockLog.sizeInBytes() / 1024.0);
+            }
+            return base;
+        } catch (IOException e) {
+            System.err.println("Fehler beim Kürzen des Block-Logs: " + e.getMessage());
+            return blockchain.getBaseHeight();
+        }
+    }
+
+    /**
+     * Anderes Verzeichnis für das Block-Log (z.B. ein temporäres für Benchmarks und Tests).
+     * Schließt das offene Log; vorher geladene Ketten lesen danach nicht mehr aus dem Store.
+     */
+    public static synchronized void setDirectory(Path directory) {
+        close();
+        store = null;
+        loadedIndex = null;
+        verifiedHeight = 0;
+        verifiedTipHash = null;
+        logDirectory = directory;
+    }
+
+    public static synchronized Path getDirectory() {
+        return logDirectory;
+    }
+
+    public static synchronized void setRetention(int blocks, PruneMode mode) {
+        retainBlocks = Math.max(0, blocks);
+        pruneMode = mode;
+    }
+
+    public static synchronized int getRetainBlocks() {
+        return retainBlocks;
+    }
+
+    public static synchronized PruneMode getPruneMode() {
+        return pruneMode;
+    }
+
+    // Alte blockchain.json neben dem Log-Verzeichnis (Standard: im Arbeitsverzeichnis)
+    private static Path legacyFile() {
+        return logDirectory.resolveSibling(FILE_NAME);
+    }
+
+    private static Path snapshotDir() {
+        return log.getDirectory().resolve(SNAPSHOT_DIR);
+    }
+
+    public static synchronized void setStorageFormat(StorageFormat format) {
+        storageFormat = format;
+    }
+
+    public static synchronized StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    /**
+     * Aktuelle Größe des Block-Logs in Bytes (ohne Dateisystemzugriff).
+     */
+    public static synchronized long getStorageSizeBytes() {
+        try {
+            return getLog().sizeInBytes();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * fsync für alles bisher Geschriebene: Wörterbuch zuerst, dann Adress-Index und Block-Log.
+     * Der {@link PersistenceWriter} ruft das einmal pro Commit statt pro Block auf.
+     */
+    public static synchronized void sync() {
+        if (log == null) return;
+        try {
+            dictionary.sync();
+            indexLog.sync();
+            log.sync();
+        } catch (IOException e) {
+            System.err.println("Fehler beim Synchronisieren des Block-Logs: " + e.getMessage());
+        }
+    }
+
+    // Block-Log sauber schließen (fsync), z.B. beim Beenden der GUI
+    public static synchronized void close() {
+        if (log == null) return;
+        try {
+            log.close();
+            indexLog.close();
+            dictionary.close();
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schließen des Block-Logs: " + e.getMessage());
+        }
+        log = null;
+        store.release();
+    }
+
+    // Blockchain laden (oder neue erstellen, falls keine Datei)
+    public static synchronized Blockchain loadBlockchain(String name, int difficulty) {
+        try {
+            BlockLog blockLog = getLog();
+
+            if (blockLog.size() == 0 && Files.exists(legacyFile())) {
+                migrateLegacyFile(blockLog);
+                resetIndex();
+            }
 
-            if (loadedBlocks == null || loadedBlocks.isEmpty()) {
-                System.out.println("Datei leer → neue Chain");
+            if (blockLog.size() == 0) {
+                System.out.println("Keine gespeicherte Blockchain gefunden → neue wird erstellt.");
                 return new Blockchain(name, difficulty);
             }
-            return new Blockchain(loadedBlocks, name, difficulty);
 
+            // Kein Deserialisieren der ganzen Kette mehr: Blöcke werden bei Bedarf aus dem Store gelesen
+            store.refresh(blockLog.size());
+            // Adress-Index aus der Datei übernehmen, nur fehlende Blöcke werden nachindiziert
+            AddressIndex index = takeIndex();
+            catchUpIndex(index);
+            Blockchain blockchain = new Blockchain(store, index, name, difficulty);
+
+            // Neuester passender Snapshot: der Ledger spielt nur die Blöcke danach nach
+            StateSnapshot snapshot = StateSnapshot.loadLatest(snapshotDir(), blockchain);
+            blockchain.setSnapshot(snapshot);
+            if (snapshot != null) {
+                System.out.printf("Snapshot bei Höhe %d geladen, %d Blöcke werden nachgespielt.%n",
+                        snapshot.height(), blockchain.size() - snapshot.height());
+            } else if (blockchain.getBaseHeight() > 0) {
+                // Ohne Snapshot fehlen die Blöcke unter der Basis für jede Balance – nicht still mit falschen Werten weiter
+                throw new IllegalStateException("Kein passender Snapshot für die ab Block #" + blockchain.getBaseHeight()
+                        + " gekürzte Kette in " + snapshotDir() + " – Balancen können nicht berechnet werden."
+                        + (pruneMode == PruneMode.ARCHIVE ? " Archivierte Segmente liegen in " + logDirectory.resolve(ARCHIVE_DIR) + "." : ""));
+            }
+
+            verifySignatures(blockchain);
+            return blockchain;
+
+        } catch (IllegalStateException e) {
+            // Eine neue, leere Kette würde beim nächsten Speichern das gekürzte Log überschreiben
+            throw e;
         } catch (Exception e) {
             System.out.println("Fehler beim Laden – neue Chain wird erstellt. Fehler: " + e.getMessage());
             return new Blockchain(name, difficulty);
         }
     }
-}
\ No newline at end of file
+
+    // Übernimmt eine alte blockchain.json einmalig in das Block-Log
+    private static void migrateLegacyFile(BlockLog blockLog) throws IOException {
+        try (Reader reader = Files.newBufferedReader(legacyFile())) {
+            Type listType = new TypeToken<ArrayList<Block>>(){}.getType();
+            List<Block> legacyBlocks = gson.fromJson(reader, listType);
+            if (legacyBlocks == null) return;
+
+            for (Block block : legacyBlocks) {
+                blockLog.append(encode(block));
+            }
+            System.out.println(legacyBlocks.size() + " Blöcke aus " + legacyFile() + " in das Block-Log übernommen.");
+        }
+    }
+
+    // --- KONVERTER JSON <-> BINÄR ---
+
+    /**
+     * Exportiert die gespeicherte Kette als JSON-Array (altes blockchain.json-Format).
+     * Bei einer gekürzten Kette nur die noch vorhandenen Blöcke ab der Basis.
+     */
+    public static synchronized int exportJson(String fileName) throws IOException {
+        BlockLog blockLog = getLog();
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new FileWriter(fileName, StandardCharsets.UTF_8)))) {
+            writer.beginArray();
+            for (int h = blockLog.getBaseHeight(); h < blockLog.size(); h++) {
+                gson.toJson(store.getBlock(h), Block.class, writer);
+            }
+            writer.endArray();
+        }
+        return blockLog.size() - blockLog.getBaseHeight();
+    }
+
+    /**
+     * Ersetzt das Block-Log durch die Blöcke aus einer JSON-Datei (im aktuellen Speicherformat).
+     */
+    public static synchronized int importJson(String fileName) throws IOException {
+        BlockLog blockLog = getLog();
+        List<Block> blocks;
+        try (Reader reader = new FileReader(fileName, StandardCharsets.UTF_8)) {
+            Type listType = new TypeToken<ArrayList<Block>>(){}.getType();
+            blocks = gson.fromJson(reader, listType);
+        }
+        if (blocks == null) blocks = new ArrayList<>();
+
+        store.release();
+        blockLog.truncate(0);
+        store.rebase(0);
+        StateSnapshot.deleteAll(snapshotDir());
+        resetIndex();
+        for (Block block : blocks) {
+            indexLog.append(blockLog.size(), block, dictionary);
+            blockLog.append(encode(block));
+        }
+        store.refresh(blockLog.size());
+        return blocks.size();
+    }
+
+    /**
+     * Schreibt alle Records des Logs im Zielformat neu (Höhen und Hashes bleiben unverändert).
+     */
+    public static synchronized void convertStorage(StorageFormat target) throws IOException {
+        BlockLog blockLog = getLog();
+        List<Block> blocks = new ArrayList<>(blockLog.size());
+        for (byte[] payload : blockLog.readAll()) {
+            blocks.add(decodeBlock(payload));
+        }
+
+        long before = blockLog.sizeInBytes();
+        storageFormat = target;
+        store.release();
+        blockLog.truncate(blockLog.getBaseHeight());
+        for (Block block : blocks) {
+            blockLog.append(encode(block));
+        }
+        store.refresh(blockLog.size());
+        System.out.printf("Block-Log nach %s konvertiert: %d Blöcke, %.1f KB → %.1f KB%n",
+                target, blocks.size(), before / 1024.0, blockLog.sizeInBytes() / 1024.0);
+    }
+
+    // Ergänzt Einträge für Blöcke, die im Log stehen, aber im Adress-Index noch fehlen (z.B. nach Absturz)
+    private static void catchUpIndex(AddressIndex index) throws IOException {
+        for (int h = indexLog.getHeight(); h < log.size(); h++) {
+            Block block = store.getBlock(h);
+            indexLog.append(h, block, dictionary);
+            if (index != null) index.add(h, block);
+        }
+    }
+
+    /**
+     * Signaturen der geladenen Kette prüfen (Fehler werden pro Block gemeldet, die Kette bleibt geladen).
+     * Geprüft wird nur oberhalb des Snapshots – die Blöcke darunter liest auch der Ledger nicht mehr – und
+     * oberhalb dessen, was in diesem Prozess schon geprüft wurde. Ein zweites Laden dekodiert so keinen Block erneut.
+     */
+    private static void verifySignatures(Blockchain blockchain) {
+        int to = blockchain.size();
+        StateSnapshot snapshot = blockchain.getSnapshot();
+        int from = Math.max(blockchain.getBaseHeight(), snapshot != null ? snapshot.height() : 0);
+        if (verifiedHeight > from && verifiedHeight <= to
+                && blockchain.getHeader(verifiedHeight - 1).hash().equals(verifiedTipHash)) {
+            from = verifiedHeight;
+        }
+        if (from < to) {
+            SignatureVerifier.printReport(SignatureVerifier.verify(blockchain.getChain(), from, to));
+        }
+        verifiedHeight = to;
+        verifiedTipHash = to > 0 ? blockchain.getHeader(to - 1).hash() : null;
+    }
+
+    /**
+     * Persistierter Adress-Index für eine neu geladene Kette. Jede Kette braucht eine eigene Instanz
+     * (sie indiziert ihre neuen Blöcke selbst); ist der beim Öffnen gelesene Index schon vergeben oder
+     * veraltet, wird er erneut aus dem indexLog gelesen – ohne einen einzigen Block zu dekodieren.
+     */
+    private static AddressIndex takeIndex() throws IOException {
+        AddressIndex index = loadedIndex;
+        loadedIndex = null;
+        if (index == null || index.getHeight() != indexLog.getHeight()) {
+            index = new AddressIndex();
+            indexLog.readInto(index, dictionary, log.getBaseHeight(), log.size());
+        }
+        return index;
+    }
+
+    private static void resetIndex() throws IOException {
+        indexLog.truncate(0);
+        loadedIndex = new AddressIndex();
+    }
+
+    private static byte[] encode(Block block) throws IOException {
+        if (storageFormat == StorageFormat.BINARY) {
+            return codec.encode(block);
+        }
+        return gson.toJson(block, Block.class).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static Block decodeBlock(byte[] payload) {
+        if (BlockCodec.isBinary(payload)) {
+            return codec.decode(payload);
+        }
+        return gson.fromJson(new String(payload, StandardCharsets.UTF_8), Block.class);
+    }
+}
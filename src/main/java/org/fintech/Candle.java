@@ -0,0 +1,9 @@
+package org.fintech;
+
+/**
+ * OHLCV-Kerze eines Intervalls.
+ *
+ * @param startMillis Beginn des Intervalls (auf die Intervall-Länge abgerundet)
+ * @param trades      Anzahl der Ticks im Intervall
+ */
+public record Candle(long startMillis, double open, double high, double low, double close, double volume, int trades) {}
@@ -0,0 +1,96 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kerzen eines festen Intervalls in einem Ring aus primitiven Arrays. Jeder Tick aktualisiert nur die
+ * jüngste Kerze (oder beginnt eine neue) – Abfragen lesen die fertigen Kerzen, nie die Roh-Ticks.
+ * Intervalle ohne Tick erzeugen keine Kerze. Nicht thread-sicher (siehe {@link TickRecorder}).
+ */
+public class CandleSeries {
+
+    private final long intervalMillis;
+    private final int capacity;
+    private final long[] start;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+    private final int[] trades;
+
+    private int newest = -1;
+    private int size = 0;
+
+    public CandleSeries(long intervalMillis, int capacity) {
+        this.intervalMillis = intervalMillis;
+        this.capacity = capacity;
+        this.start = new long[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.close = new double[capacity];
+        this.volume = new double[capacity];
+        this.trades = new int[capacity];
+    }
+
+    public void update(long timeMillis, double price, double tickVolume) {
+        long bucket = timeMillis - Math.floorMod(timeMillis, intervalMillis);
+        // Ticks dürfen nicht zurückspringen; verspätete zählen zur jüngsten Kerze
+        if (newest >= 0 && bucket <= start[newest]) {
+            high[newest] = Math.max(high[newest], price);
+            low[newest] = Math.min(low[newest], price);
+            close[newest] = price;
+            volume[newest] += tickVolume;
+            trades[newest]++;
+            return;
+        }
+        newest = (newest + 1) % capacity;
+        if (size < capacity) size++;
+        start[newest] = bucket;
+        open[newest] = price;
+        high[newest] = price;
+        low[newest] = price;
+        close[newest] = price;
+        volume[newest] = tickVolume;
+        trades[newest] = 1;
+    }
+
+    /** Die jüngsten n Kerzen, älteste zuerst. */
+    public List<Candle> latest(int n) {
+        int count = Math.min(n, size);
+        List<Candle> result = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            result.add(candle(Math.floorMod(newest - i, capacity)));
+        }
+        return result;
+    }
+
+    /** Kerzen mit Beginn in [fromMillis, toMillis), älteste zuerst. */
+    public List<Candle> range(long fromMillis, long toMillis) {
+        List<Candle> result = new ArrayList<>();
+        for (int i = size - 1; i >= 0; i--) {
+            int index = Math.floorMod(newest - i, capacity);
+            if (start[index] >= fromMillis && start[index] < toMillis) result.add(candle(index));
+        }
+        return result;
+    }
+
+    /** Jüngste (evtl. noch offene) Kerze oder null. */
+    public Candle current() {
+        return newest < 0 ? null : candle(newest);
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Candle candle(int index) {
+        return new Candle(start[index], open[index], high[index], low[index], close[index], volume[index], trades[index]);
+    }
+}
@@ -0,0 +1,110 @@
+package org.fintech;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Prüft Blockhashes, Schwierigkeit und Verkettung eines Höhenbereichs.
+ *
+ * Der Bereich wird in Abschnitte zu {@link #CHUNK_SIZE} Blöcken geteilt, die parallel geprüft werden
+ * (Hash neu berechnen, Präfix, Verkettung innerhalb des Abschnitts). Ein zweiter, billiger Durchlauf
+ * prüft danach nur noch die Nahtstellen zwischen den Abschnitten – ohne einen Hash neu zu berechnen.
+ */
+public final class ChainValidator {
+
+    static final int CHUNK_SIZE = 4096;
+
+    /** Ergebnis einer Prüfung; invalidHeight ist -1, wenn der Bereich gültig ist. */
+    public record Result(boolean valid, int fromHeight, int toHeight, int invalidHeight, String reason, long nanos) {
+        @Override
+        public String toString() {
+            String range = "Blöcke #" + fromHeight + "–#" + (toHeight - 1);
+            if (toHeight <= fromHeight) range = "keine neuen Blöcke";
+            String state = valid ? "gültig" : "ungültig ab Block #" + invalidHeight + " (" + reason + ")";
+            return String.format("Kettenprüfung: %s %s (%.1f ms)", range, state, nanos / 1_000_000.0);
+        }
+    }
+
+    // Teilergebnis eines Abschnitts: Rand-Hashes für den Nahtstellen-Durchlauf
+    private record Chunk(int start, String firstPreviousHash, String lastHash, int invalidHeight, String reason) {}
+
+    private ChainValidator() {}
+
+    /**
+     * Prüft die Blöcke [from, to) gegen ihren jeweiligen Vorgänger. Der Genesis-Block (#0) wird
+     * wie bisher nicht selbst geprüft, dient aber als Anker für Block #1.
+     */
+    public static Result validate(List<Block> chain, int from, int to, int difficulty) {
+        return validate(chain, from, to, difficulty, 0);
+    }
+
+    /**
+     * Wie oben für eine gekürzte Kette: Blöcke unter baseHeight fehlen, der erste vorhandene Block
+     * wird ohne Vorgänger geprüft (er ist über den Snapshot verankert).
+     */
+    public static Result validate(List<Block> chain, int from, int to, int difficulty, int baseHeight) {
+        long start = System.nanoTime();
+        int first = Math.max(Math.max(1, baseHeight), from);
+        if (first >= to) {
+            return new Result(true, from, to, -1, null, System.nanoTime() - start);
+        }
+
+        String prefix = "0".repeat(difficulty);
+        int chunks = (to - first + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream indices = IntStream.range(0, chunks);
+        if (chunks > 1) indices = indices.parallel();
+        List<Chunk> results = indices
+                .mapToObj(c -> checkChunk(chain, first + c * CHUNK_SIZE, Math.min(to, first + (c + 1) * CHUNK_SIZE), prefix))
+                .toList();
+
+        // Zweiter Durchlauf: Nahtstellen (inkl. Anschluss an den Block vor dem Bereich), in Höhenreihenfolge
+        String expectedPrevious = first > baseHeight ? chain.get(first - 1).getHash() : null;
+        for (Chunk chunk : results) {
+            if (expectedPrevious != null && !chunk.firstPreviousHash().equals(expectedPrevious)) {
+                return new Result(false, from, to, chunk.start(), "Vorgänger-Hash passt nicht", System.nanoTime() - start);
+            }
+            if (chunk.invalidHeight() >= 0) {
+                return new Result(false, from, to, chunk.invalidHeight(), chunk.reason(), System.nanoTime() - start);
+            }
+            expectedPrevious = chunk.lastHash();
+        }
+        return new Result(true, from, to, -1, null, System.nanoTime() - start);
+    }
+
+    private static Chunk checkChunk(List<Block> chain, int start, int end, String prefix) {
+        String firstPrevious = null;
+        String previousHash = null;
+        for (int h = start; h < end; h++) {
+            Block block = chain.get(h);
+            if (h == start) {
+                firstPrevious = block.getPreviousHash();
+            } else if (!block.getPreviousHash().equals(previousHash)) {
+                return new Chunk(start, firstPrevious, null, h, "Vorgänger-Hash passt nicht");
+            }
+            if (!block.getHash().equals(block.calculateHash())) {
+                return new Chunk(start, firstPrevious, null, h, "Hash stimmt nicht mit dem Inhalt überein");
+            }
+            if (!block.getHash().startsWith(prefix)) {
+                return new Chunk(start, firstPrevious, null, h, "Schwierigkeit nicht erfüllt");
+            }
+            if (hasDuplicateTransaction(block)) {
+                return new Chunk(start, firstPrevious, null, h, "Doppelte Transaktion im Block");
+            }
+            previousHash = block.getHash();
+        }
+        return new Chunk(start, firstPrevious, previousHash, -1, null);
+    }
+
+    // Der Merkle-Baum dupliziert den letzten Knoten ungerader Ebenen: [a,b,c] und [a,b,c,c] haben dieselbe
+    // Wurzel (und damit denselben Blockhash) – eine doppelte txId muss deshalb hier abgelehnt werden
+    private static boolean hasDuplicateTransaction(Block block) {
+        List<Transaction> txs = block.getTransactions();
+        Set<String> seen = new HashSet<>(txs.size() * 2);
+        for (Transaction tx : txs) {
+            if (!seen.add(tx.getTxId())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,353 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Börse der Simulation: verbindet das {@link OrderBook} mit Wallets, Mempool und Preis.
+ *
+ * Trader handeln gegeneinander und gegen einen Market-Maker, der um den letzten Handelspreis eine
+ * Leiter aus Angeboten (aus der Supply Wallet) und gleich tiefen Geboten (Verkäufe an {@link MyChainGUI#EXCHANGE_ADDRESS})
+ * stellt. Die Ausführungen einer Order werden pro Parteienpaar zu einer {@link Settlement}-Überweisung
+ * Verkäufer → Käufer zusammengefasst, die der Aufrufer außerhalb des Locks signiert und in den Mempool gibt. Der letzte Handelspreis treibt
+ * {@link PriceSimulator#getCurrentPrice()}.
+ *
+ * Deckung: Verkäufe reservieren SC im Mempool, Käufe hinterlegen USD zum Limitpreis; beides wird bei
+ * Ausführung verrechnet und bei Storno/Verfall zurückgegeben. Alle USD-Buchungen laufen unter dem Lock der Börse.
+ */
+public class Exchange {
+
+    /** Eine auszuführende SC-Überweisung aus einem Handel (vom Verkäufer zu signieren). */
+    public record Settlement(Wallet seller, String recipient, double amount, double price, String message) {}
+
+    /** Ergebnis einer Order: ausgeführte Menge, Durchschnittspreis und ob ein Rest im Buch ruht. */
+    public record Result(boolean accepted, double filled, double averagePrice, boolean resting, List<Settlement> settlements) {
+        static final Result REJECTED = new Result(false, 0, 0, false, List.of());
+    }
+
+    // Ruhende Trader-Order: Seite und Limit bestimmen, welche Deckung ein Storno zurückgibt
+    private record Resting(Wallet wallet, boolean buy, long price) {}
+
+    public static final double TICK_SIZE = 0.0001; // USD
+    public static final double LOT_SIZE = 0.001;   // SC
+
+    // Market-Maker: Stufen je Seite, Abstand relativ zum Preis, Menge pro Stufe
+    private static final int MAKER_OWNER = -1;
+    private static final int MAKER_LEVELS = 50;
+    private static final double MAKER_STEP = 0.0001;
+    private static final double MAKER_LEVEL_SC = 1000.0;
+    // Market-Orders kaufen höchstens so weit über dem letzten Preis (Preisschutz für die USD-Deckung)
+    public static final double MAX_SLIPPAGE = 0.01;
+    private static final double MIN_PRICE = 0.3;
+
+    private final Mempool mempool;
+    private final PriceSimulator priceSimulator;
+    private final OrderBook book = new OrderBook(new Settler());
+    // Nur Trader-Orders – die Orders des Market-Makers würden die Verteilung verwässern
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+
+    // Ruhende Trader-Orders (höchstens eine pro Wallet)
+    private final Map<Long, Resting> restingOrders = new HashMap<>();
+    private final Map<Integer, Long> restingByOwner = new HashMap<>();
+
+    // Stufen des Market-Makers: Preis in Ticks → Order-ID
+    private final Map<Long, Long> makerAsks = new HashMap<>();
+    private final Map<Long, Long> makerBids = new HashMap<>();
+    private long quotedAround = 0;
+    private boolean makerFilled = false;
+
+    // Zustand der gerade laufenden Order (nur unter dem Lock gültig)
+    private Wallet taker;
+    private long takerLimit;
+    private List<Settlement> settlements;
+    private long filledLots;
+    private double filledUsd;
+    // Alle Ausführungen der Order inkl. Neu-Quotierung (Volumen des Ticks)
+    private long tradedLots;
+    private boolean takerBuy;
+
+    public Exchange(Mempool mempool, PriceSimulator priceSimulator) {
+        this.mempool = mempool;
+        this.priceSimulator = priceSimulator;
+    }
+
+    /** Limit-Order; der nicht ausgeführte Rest ruht im Buch und ersetzt eine ältere Order der Wallet. */
+    public synchronized Result placeLimit(Wallet wallet, boolean buy, double amount, double price) {
+        return place(wallet, buy, toLots(amount), Math.max(1, toTicks(price)), false);
+    }
+
+    /**
+     * Market-Order; der Rest verfällt. Beide Seiten sind durch {@link #MAX_SLIPPAGE} um den letzten Preis
+     * begrenzt: Käufe, damit die hinterlegten USD reichen, Verkäufe, damit eine Order nicht das ganze Buch abräumt.
+     */
+    public synchronized Result placeMarket(Wallet wallet, boolean buy, double amount) {
+        long limit = toTicks(currentPrice() * (buy ? 1 + MAX_SLIPPAGE : 1 - MAX_SLIPPAGE));
+        return place(wallet, buy, toLots(amount), Math.max(1, limit), true);
+    }
+
+    /** Storniert alle ruhenden Trader-Orders (Deckung geht zurück), z.B. beim Stoppen der Simulation. */
+    public synchronized int cancelAll() {
+        List<Long> ids = new ArrayList<>(restingOrders.keySet());
+        ids.forEach(book::cancel);
+        return ids.size();
+    }
+
+    private Result place(Wallet wallet, boolean buy, long lots, long limit, boolean immediate) {
+        if (lots <= 0) return Result.REJECTED;
+
+        // Erst die Deckung prüfen, dann die ältere Order stornieren – eine abgelehnte Order lässt sie stehen.
+        // Was das Storno zurückgibt, zählt dabei schon mit.
+        Long previous = restingByOwner.get(wallet.getUniqueId());
+        Resting old = previous != null ? restingOrders.get(previous) : null;
+        long oldLots = old != null ? book.remaining(previous) : 0;
+        double amount = lots * LOT_SIZE;
+        if (buy) {
+            double escrow = amount * limit * TICK_SIZE;
+            double refund = old != null && old.buy() ? oldLots * LOT_SIZE * old.price() * TICK_SIZE : 0;
+            if (wallet.getUsdBalance() + refund < escrow) return Result.REJECTED;
+            if (previous != null) book.cancel(previous);
+            wallet.debitUsd(escrow);
+        } else {
+            double released = old != null && !old.buy() ? oldLots * LOT_SIZE : 0;
+            // Die alte Reservierung wird gleich frei und darf deshalb auf die neue angerechnet werden
+            if (!mempool.tryReserve(wallet, amount, 0.01 - released)) return Result.REJECTED;
+            if (previous != null) book.cancel(previous);
+        }
+
+        taker = wallet;
+        takerLimit = limit;
+        settlements = new ArrayList<>();
+        filledLots = 0;
+        filledUsd = 0;
+        tradedLots = 0;
+        takerBuy = buy;
+        try {
+            ensureQuotes();
+            long start = System.nanoTime();
+            long orderId;
+            if (immediate) {
+                orderId = book.submitImmediate(wallet.getUniqueId(), buy, limit, lots);
+            } else {
+                orderId = book.submitLimit(wallet.getUniqueId(), buy, limit, lots);
+            }
+            matchLatency.record(System.nanoTime() - start);
+
+            boolean resting = book.remaining(orderId) > 0;
+            if (resting) {
+                restingOrders.put(orderId, new Resting(wallet, buy, limit));
+                restingByOwner.put(wallet.getUniqueId(), orderId);
+            }
+            double filled = filledLots * LOT_SIZE;
+            double averagePrice = filled > 0 ? filledUsd / filled : 0.0;
+
+            taker = null;
+            publishAndRequote();
+            return new Result(true, filled, averagePrice, resting, settlements);
+        } finally {
+            taker = null;
+            settlements = null;
+        }
+    }
+
+    // --- MARKET-MAKER ---
+
+    private void ensureQuotes() {
+        if (makerAsks.isEmpty() && makerBids.isEmpty()) requote(toTicks(currentPrice()));
+    }
+
+    // Letzten Handelspreis übernehmen; Leiter neu stellen, wenn sich der Preis bewegt hat oder sie angegriffen wurde
+    private void publishAndRequote() {
+        long last = book.getLastTradePrice();
+        if (last > 0 && tradedLots > 0) priceSimulator.onTrade(last * TICK_SIZE, tradedLots * LOT_SIZE, takerBuy);
+        long center = last > 0 ? last : toTicks(currentPrice());
+        // Einseitiges Buch (eine Seite leergeräumt): die Leiter bleibt um die alte Mitte, sonst läuft sie dem Abräumen hinterher
+        if (quotedAround > 0 && (book.getBestBid() == 0 || book.getBestAsk() == 0)) center = quotedAround;
+        if (center != quotedAround || makerFilled) requote(center);
+    }
+
+    // Leiter mit dem Buch abgleichen: nur leergeräumte Stufen und Stufen außerhalb der neuen Leiter werden
+    // storniert bzw. neu gestellt, nicht mehr alle 100 Orders bei jedem Handel
+    private void requote(long center) {
+        makerFilled = false;
+        quotedAround = center;
+
+        long step = Math.max(1, Math.round(center * MAKER_STEP));
+        long levelLots = toLots(MAKER_LEVEL_SC);
+        dropStaleLevels(makerAsks, false, center, step);
+        dropStaleLevels(makerBids, true, center, step);
+
+        // Angebote aus der Supply Wallet: nur so viel, wie dort frei ist, von der besten Stufe an
+        Wallet supply = WalletManager.SUPPLY_WALLET;
+        long askLots = 0;
+        for (int i = 1; i <= MAKER_LEVELS; i++) {
+            long price = center + i * step;
+            Long id = makerAsks.get(price);
+            if (id != null) {
+                askLots += book.remaining(id);
+                continue;
+            }
+            long lots = Math.min(levelLots, toLots(mempool.getAvailableBalance(supply) - 0.01));
+            if (lots <= 0 || !mempool.tryReserve(supply, lots * LOT_SIZE, 0.01)) continue;
+            askLots += addMakerOrder(makerAsks, false, price, lots);
+        }
+
+        // Gebote (Käufe an die Exchange) nur in derselben Tiefe wie die Angebote – ohne SC in der Supply Wallet
+        // stellt der Market-Maker gar nicht, statt unbegrenzt USD gegen SC zu bieten
+        long bidLots = 0;
+        for (int i = 1; i <= MAKER_LEVELS; i++) {
+            long price = center - i * step;
+            Long id = makerBids.get(price);
+            if (bidLots >= askLots || price * TICK_SIZE < MIN_PRICE) {
+                if (id != null) cancelMaker(makerBids, price, id);
+                continue;
+            }
+            if (id != null) bidLots += book.remaining(id);
+            else bidLots += addMakerOrder(makerBids, true, price, Math.min(levelLots, askLots - bidLots));
+        }
+    }
+
+    // Ausgeführte Stufen vergessen, Stufen außerhalb der Leiter um center stornieren
+    private void dropStaleLevels(Map<Long, Long> levels, boolean buy, long center, long step) {
+        Iterator<Map.Entry<Long, Long>> it = levels.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Long> level = it.next();
+            long offset = buy ? center - level.getKey() : level.getKey() - center;
+            boolean onLadder = offset > 0 && offset % step == 0 && offset / step <= MAKER_LEVELS;
+            if (book.remaining(level.getValue()) == 0) {
+                it.remove();
+            } else if (!onLadder) {
+                it.remove();
+                book.cancel(level.getValue());
+            }
+        }
+    }
+
+    private void cancelMaker(Map<Long, Long> levels, long price, long id) {
+        levels.remove(price);
+        book.cancel(id);
+    }
+
+    // @return im Buch ruhende Menge der neuen Order
+    private long addMakerOrder(Map<Long, Long> levels, boolean buy, long price, long lots) {
+        long id = book.submitLimit(MAKER_OWNER, buy, price, lots);
+        long resting = book.remaining(id);
+        if (resting > 0) levels.put(price, id);
+        return resting;
+    }
+
+    // --- AUSFÜHRUNG ---
+
+    private final class Settler implements OrderBook.Listener {
+        @Override
+        public void onFill(long makerOrderId, int makerOwner, long takerOrderId, int takerOwner,
+                           boolean takerBuy, long price, long quantity) {
+            double amount = quantity * LOT_SIZE;
+            double usd = amount * price * TICK_SIZE;
+            // null = Market-Maker
+            Wallet maker = makerOwner == MAKER_OWNER ? null : restingOrders.get(makerOrderId).wallet();
+            Wallet takerWallet = takerOwner == MAKER_OWNER ? null : taker;
+            Wallet buyer = takerBuy ? takerWallet : maker;
+            Wallet seller = takerBuy ? maker : takerWallet;
+
+            // Käufer-Taker hat zum Limit hinterlegt – Differenz zum Ausführungspreis zurück
+            if (takerBuy && takerWallet != null) takerWallet.creditUsd(amount * (takerLimit - price) * TICK_SIZE);
+            if (seller != null) seller.creditUsd(usd);
+
+            String message;
+            if (seller == null) message = "SIMULIERT: SC Kauf von Supply";
+            else if (buyer == null) message = "SIMULIERT: SC Verkauf an Exchange";
+            else message = "SIMULIERT: SC Handel im Orderbuch";
+            addSettlement(seller != null ? seller : WalletManager.SUPPLY_WALLET,
+                    buyer != null ? buyer.getAddress() : MyChainGUI.EXCHANGE_ADDRESS,
+                    amount, usd, message);
+
+            if (maker == null) {
+                makerFilled = true;
+            } else if (book.remaining(makerOrderId) == 0) {
+                restingOrders.remove(makerOrderId);
+                restingByOwner.remove(makerOwner, makerOrderId);
+            }
+            tradedLots += quantity;
+            if (takerWallet != null) {
+                filledLots += quantity;
+                filledUsd += usd;
+            }
+        }
+
+        @Override
+        public void onCancel(long orderId, int owner, boolean buy, long price, long remaining) {
+            double amount = remaining * LOT_SIZE;
+            if (owner == MAKER_OWNER) {
+                if (!buy) mempool.cancelReservation(WalletManager.SUPPLY_WALLET.getAddress(), amount);
+                return;
+            }
+            // Ruhende Order oder verfallener Rest der laufenden Order
+            Resting resting = restingOrders.remove(orderId);
+            Wallet wallet;
+            if (resting != null) {
+                restingByOwner.remove(owner, orderId);
+                wallet = resting.wallet();
+            } else {
+                wallet = taker;
+            }
+            if (wallet == null) return;
+
+            if (buy) wallet.creditUsd(amount * price * TICK_SIZE);
+            else mempool.cancelReservation(wallet.getAddress(), amount);
+        }
+    }
+
+    // Mehrere Ausführungen zwischen denselben Parteien (z.B. über mehrere Stufen der Leiter) → eine Überweisung
+    private void addSettlement(Wallet seller, String recipient, double amount, double usd, String message) {
+        for (int i = 0; i < settlements.size(); i++) {
+            Settlement s = settlements.get(i);
+            if (s.seller() == seller && s.recipient().equals(recipient)) {
+                double total = s.amount() + amount;
+                settlements.set(i, new Settlement(seller, recipient, total, (s.amount() * s.price() + usd) / total, message));
+                return;
+            }
+        }
+        settlements.add(new Settlement(seller, recipient, amount, usd / amount, message));
+    }
+
+    // --- ABFRAGEN ---
+
+    private double currentPrice() {
+        return priceSimulator.getCurrentPrice();
+    }
+
+    static long toTicks(double price) {
+        return Math.round(price / TICK_SIZE);
+    }
+
+    static long toLots(double amount) {
+        return (long) Math.floor(amount / LOT_SIZE + 1e-9);
+    }
+
+    public synchronized double getBestBid() {
+        return book.getBestBid() * TICK_SIZE;
+    }
+
+    public synchronized double getBestAsk() {
+        return book.getBestAsk() * TICK_SIZE;
+    }
+
+    public synchronized int getRestingOrderCount() {
+        return restingOrders.size();
+    }
+
+    /** Matching-Zeit pro Trader-Order (ohne die Orders des Market-Makers). */
+    public LatencyHistogram getMatchLatency() {
+        return matchLatency;
+    }
+
+    public synchronized String statsSummary() {
+        return String.format("Orderbuch: %d Orders, %d Ausführungen, %d Stornos, %d ruhende Trader-Orders, Spread %.4f–%.4f USD%n"
+                        + "Matching-Latenz (Trader-Orders): %s",
+                book.getOrderCount(), book.getFillCount(), book.getCancelCount(), restingOrders.size(),
+                getBestBid(), getBestAsk(), matchLatency);
+    }
+}
@@ -0,0 +1,129 @@
+package org.fintech;
+
+/**
+ * Startet die Simulation ohne JavaFX (Server, Benchmarks, CI).
+ *
+ * Aufruf: Main --headless [Optionen] oder direkt HeadlessLauncher [Optionen]
+ *   --duration=SEK      Laufzeit in Sekunden (Standard 30)
+ *   --trades=N          stattdessen nach N ausgeführten Trades beenden
+ *   --traders=N         Anzahl gleichzeitiger Trader-Agenten
+ *   --rate=R            Ziel-Handelsrate in Trades/s
+ *   --difficulty=D      Mining-Schwierigkeit (Standard 1 wie in der GUI)
+ *   --block-size=N      max. Transaktionen pro Block
+ *   --block-latency=MS  max. Wartezeit einer Transaktion bis zum Block
+ *   --verbose           jeden Trade ausgeben
+ *   --durability=M      block | interval | shutdown: wann der Hintergrund-Writer schreibt (Standard block)
+ *   --flush-interval=MS Abstand der Commits im Modus interval (Standard 1000)
+ *   --metrics-port=P    Prometheus-Endpunkt auf 127.0.0.1:P/metrics (Standard 9464, 0 = aus)
+ *   --metrics-log=SEK   Metrik-Schnappschuss auf der Konsole alle SEK Sekunden (Standard 60, 0 = aus)
+ */
+public class HeadlessLauncher {
+
+    private static final long PROGRESS_INTERVAL = 5000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long durationMillis = 30_000;
+        long maxTrades = 0;
+        int difficulty = 1;
+        boolean verbose = false;
+        Integer traders = null;
+        Double rate = null;
+        Integer blockSize = null;
+        Long blockLatency = null;
+        PersistenceWriter.Durability durability = PersistenceWriter.Durability.EVERY_BLOCK;
+        long flushInterval = PersistenceWriter.getIntervalMillis();
+        int metricsPort = MetricsExporter.DEFAULT_PORT;
+        long metricsLogSeconds = MetricsExporter.DEFAULT_LOG_PERIOD_SECONDS;
+
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--duration=")) durationMillis = (long) (Double.parseDouble(value) * 1000);
+            else if (arg.startsWith("--trades=")) maxTrades = Long.parseLong(value);
+            else if (arg.startsWith("--traders=")) traders = Integer.parseInt(value);
+            else if (arg.startsWith("--rate=")) rate = Double.parseDouble(value);
+            else if (arg.startsWith("--difficulty=")) difficulty = Integer.parseInt(value);
+            else if (arg.startsWith("--block-size=")) blockSize = Integer.parseInt(value);
+            else if (arg.startsWith("--block-latency=")) blockLatency = Long.parseLong(value);
+            else if (arg.startsWith("--durability=")) durability = parseDurability(value);
+            else if (arg.startsWith("--flush-interval=")) flushInterval = Long.parseLong(value);
+            else if (arg.startsWith("--metrics-port=")) metricsPort = Integer.parseInt(value);
+            else if (arg.startsWith("--metrics-log=")) metricsLogSeconds = Long.parseLong(value);
+            else if (arg.equals("--verbose")) verbose = true;
+            else if (!arg.equals("--headless")) System.err.println("Unbekannte Option ignoriert: " + arg);
+        }
+
+        PersistenceWriter.setDurability(durability, flushInterval);
+
+        // Gleiche Verdrahtung wie MyChainGUI, nur ohne Oberfläche
+        WalletManager.loadWallets();
+        Blockchain blockchain = BlockchainPersistence.loadBlockchain("MyChain", difficulty);
+        StateSnapshot snapshot = blockchain.getSnapshot();
+        PriceSimulator priceSimulator = new PriceSimulator(PriceSimulator.loadPrice(snapshot != null ? snapshot.price() : 1.0));
+        NetworkSimulator simulator = new NetworkSimulator(blockchain, WalletManager.INSTANCE, priceSimulator);
+
+        simulator.setVerbose(verbose);
+        if (traders != null) simulator.setTraderCount(traders);
+        if (rate != null) simulator.setTargetTradeRate(rate);
+        if (blockSize != null) simulator.getBlockAssembler().setMaxTransactions(blockSize);
+        if (blockLatency != null) simulator.getBlockAssembler().setMaxLatencyMillis(blockLatency);
+
+        if (metricsPort > 0) MetricsExporter.start(metricsPort);
+        MetricsExporter.startLogging(metricsLogSeconds);
+
+        TradingEngine engine = simulator.getTradingEngine();
+        Mempool mempool = simulator.getMempool();
+        int startHeight = blockchain.size();
+        long start = System.nanoTime();
+        long deadline = maxTrades > 0 ? Long.MAX_VALUE : start + durationMillis * 1_000_000;
+
+        simulator.start();
+        long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL;
+        while (System.nanoTime() < deadline && (maxTrades == 0 || engine.getExecuted() < maxTrades)) {
+            Thread.sleep(100);
+            if (System.currentTimeMillis() >= nextProgress) {
+                nextProgress += PROGRESS_INTERVAL;
+                System.out.printf("[%.0fs] %d Trades (%.1f/s) | Höhe %d | Mempool %d | Preis %.4f USD%n",
+                        (System.nanoTime() - start) / 1e9, engine.getExecuted(), engine.getExecutedRate(),
+                        blockchain.size() - 1, mempool.size(), priceSimulator.getCurrentPrice());
+            }
+        }
+        simulator.stop();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        PriceSimulator.savePrice(priceSimulator.getCurrentPrice());
+        PersistenceWriter.shutdown();
+        BlockchainPersistence.saveBlockchain(blockchain);
+        BlockchainPersistence.close();
+        MetricsExporter.stop();
+
+        int blocks = blockchain.size() - startHeight;
+        System.out.println();
+        System.out.println("=== HEADLESS-ZUSAMMENFASSUNG ===");
+        System.out.printf("Laufzeit:        %.1f s%n", seconds);
+        System.out.printf("Trades:          %d ausgeführt (%.1f/s), %d abgelehnt, %d verworfen%n",
+                engine.getExecuted(), engine.getExecuted() / seconds, engine.getRejected(), engine.getDropped());
+        System.out.printf("Order-Latenz:    Ø %.2f ms, max %.2f ms%n", engine.getAverageLatencyMillis(), engine.getMaxLatencyMillis());
+        System.out.printf("Blöcke:          %d neu (%.2f/s), Ø %.1f Tx/Block%n",
+                blocks, blocks / seconds, blocks == 0 ? 0.0 : (double) mempool.getIncludedCount() / blocks);
+        System.out.printf("Mempool-Wartezeit: Ø %.1f ms, max %.1f ms%n", mempool.getAverageWaitMillis(), mempool.getMaxWaitMillis());
+        System.out.printf("Mining:          Ø %,.0f Hashes/s%n", ParallelMiner.getAverageHashRate());
+        System.out.println(CryptoService.statsSummary());
+        System.out.println(PersistenceWriter.statsSummary());
+        System.out.printf("Endpreis:        %.4f USD%n", priceSimulator.getCurrentPrice());
+        Candle minute = priceSimulator.getTickRecorder().currentCandle(TickRecorder.Interval.MINUTE);
+        if (minute != null) {
+            System.out.printf("Letzte 1m-Kerze: O %.4f H %.4f L %.4f C %.4f, %.3f SC in %d Ticks (%d Ticks gesamt)%n",
+                    minute.open(), minute.high(), minute.low(), minute.close(), minute.volume(), minute.trades(),
+                    priceSimulator.getTickRecorder().getTotalTicks());
+        }
+    }
+
+    private static PersistenceWriter.Durability parseDurability(String value) {
+        return switch (value) {
+            case "block" -> PersistenceWriter.Durability.EVERY_BLOCK;
+            case "interval" -> PersistenceWriter.Durability.INTERVAL;
+            case "shutdown" -> PersistenceWriter.Durability.ON_SHUTDOWN;
+            default -> throw new IllegalArgumentException("Unbekannter Durability-Modus: " + value);
+        };
+    }
+}
@@ -1,10 +1,16 @@
 package org.fintech;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // 🌟 NEU: --headless startet nur die Simulation, ohne JavaFX
+        if (Arrays.asList(args).contains("--headless")) {
+            HeadlessLauncher.main(args);
+            return;
+        }
         // Startet nun die Login-GUI
         LoginGUI.launch(LoginGUI.class, args);
     }
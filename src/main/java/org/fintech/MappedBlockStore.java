@@ -0,0 +1,221 @@
+package org.fintech;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lesezugriff auf das Block-Log über {@link MappedByteBuffer}.
+ *
+ * Block N wird in O(1) gefunden: Eintrag N im Index (feste Breite, 12 Byte) liefert
+ * Segment und Offset, der Record wird direkt aus dem gemappten Segment gelesen.
+ * Es wird immer nur der angefragte Block deserialisiert.
+ * Nach dem Kürzen des Logs sind nur Blöcke ab der Basishöhe lesbar.
+ *
+ * Zuletzt gelesene Blöcke hält ein begrenzter LRU-Cache; für Header ({@link #getHeader}) wird
+ * nur der Anfang des Records gelesen, ohne die Transaktionen zu dekodieren.
+ */
+public class MappedBlockStore {
+
+    private final Path dir;
+    private MappedByteBuffer index;
+    private int mappedEntries;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int height;
+    private int baseHeight;
+
+    // 🌟 NEU: LRU-Cache für dekodierte Blöcke (Zugriffsreihenfolge), begrenzt auf cacheCapacity Einträge
+    private int cacheCapacity = 256;
+    private final LinkedHashMap<Integer, Block> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+    // Wird bei release() erhöht: Blöcke, die währenddessen dekodiert wurden, landen nicht mehr im Cache
+    private long generation;
+    private long cacheHits;
+    private long cacheMisses;
+
+    public MappedBlockStore(Path dir, int height) {
+        this.dir = dir;
+        this.height = height;
+    }
+
+    public synchronized int size() {
+        return height;
+    }
+
+    public synchronized int getBaseHeight() {
+        return baseHeight;
+    }
+
+    /**
+     * Neue Basis nach {@link BlockLog#pruneBelow}: der Index wurde ersetzt, alle Mappings werden verworfen.
+     */
+    public synchronized void rebase(int newBaseHeight) {
+        if (newBaseHeight == baseHeight) return;
+        release();
+        baseHeight = newBaseHeight;
+    }
+
+    /**
+     * Wird nach dem Anhängen/Kürzen des Logs aufgerufen. Gemappt wird erst beim nächsten Zugriff.
+     */
+    public synchronized void refresh(int newHeight) {
+        if (newHeight < height) {
+            release();
+        }
+        height = newHeight;
+    }
+
+    /**
+     * Gibt alle Mappings frei (z.B. bevor das Log gekürzt wird).
+     */
+    public synchronized void release() {
+        index = null;
+        mappedEntries = 0;
+        segments.clear();
+        // Nach dem Kürzen/Neuschreiben können unter derselben Höhe andere Blöcke liegen
+        cache.clear();
+        generation++;
+    }
+
+    public Block getBlock(int h) {
+        byte[] payload;
+        long readGeneration;
+        synchronized (this) {
+            checkHeight(h);
+            Block cached = cache.get(h);
+            if (cached != null) {
+                cacheHits++;
+                return cached;
+            }
+            cacheMisses++;
+            payload = copyPayload(h, Integer.MAX_VALUE);
+            readGeneration = generation;
+        }
+        // Nur das Kopieren braucht den Lock; dekodiert wird parallel
+        Block block = BlockchainPersistence.decodeBlock(payload);
+        synchronized (this) {
+            if (generation == readGeneration) cache.put(h, block);
+        }
+        return block;
+    }
+
+    /**
+     * Header von Block h. Liest nur den Anfang des Records; ältere Formate (ohne Merkle-Wurzel im
+     * Record, JSON) werden vollständig dekodiert, aber nicht gecacht.
+     */
+    public BlockHeader getHeader(int h) {
+        byte[] prefix;
+        synchronized (this) {
+            checkHeight(h);
+            Block cached = cache.get(h);
+            if (cached != null) return BlockHeader.of(h, cached);
+            prefix = copyPayload(h, BlockCodec.HEADER_PREFIX_BYTES);
+        }
+        BlockHeader header = BlockCodec.isBinary(prefix) ? BlockCodec.decodeHeader(prefix, h) : null;
+        if (header != null) return header;
+
+        byte[] payload;
+        synchronized (this) {
+            checkHeight(h);
+            payload = copyPayload(h, Integer.MAX_VALUE);
+        }
+        return BlockHeader.of(h, BlockchainPersistence.decodeBlock(payload));
+    }
+
+    public synchronized void setCacheCapacity(int blocks) {
+        cacheCapacity = Math.max(0, blocks);
+        cache.clear();
+    }
+
+    public synchronized int getCacheCapacity() {
+        return cacheCapacity;
+    }
+
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    public synchronized long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    private void checkHeight(int h) {
+        if (h < 0 || h >= height) {
+            throw new IndexOutOfBoundsException("Block #" + h + " existiert nicht (Höhe " + height + ")");
+        }
+        if (h < baseHeight) {
+            throw new IndexOutOfBoundsException("Block #" + h + " wurde nach einem Snapshot entfernt (Basis " + baseHeight + ")");
+        }
+    }
+
+    // Kopiert höchstens maxBytes vom Anfang des Payloads (für Header reicht der Anfang)
+    private byte[] copyPayload(int h, int maxBytes) {
+        try {
+            return readPayload(h, maxBytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Block #" + h + " konnte nicht gelesen werden", e);
+        }
+    }
+
+    private byte[] readPayload(int h, int maxBytes) throws IOException {
+        if (h - baseHeight >= mappedEntries) {
+            mapIndex();
+        }
+        int position = (h - baseHeight) * BlockLog.INDEX_ENTRY_BYTES;
+        int segmentNo = index.getInt(position);
+        long offset = index.getLong(position + 4);
+
+        MappedByteBuffer segment = segmentBuffer(segmentNo, offset + BlockLog.RECORD_HEADER_BYTES);
+        int length = segment.getInt((int) offset);
+        if (offset + BlockLog.RECORD_HEADER_BYTES + length > segment.capacity()) {
+            segment = mapSegment(segmentNo);
+        }
+
+        byte[] payload = new byte[Math.min(length, maxBytes)];
+        segment.get((int) offset + BlockLog.RECORD_HEADER_BYTES, payload);
+        return payload;
+    }
+
+    private void mapIndex() throws IOException {
+        try (FileChannel ch = FileChannel.open(dir.resolve(BlockLog.INDEX_FILE), StandardOpenOption.READ)) {
+            long bytes = Math.min(ch.size(), (long) (height - baseHeight) * BlockLog.INDEX_ENTRY_BYTES);
+            index = ch.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            mappedEntries = (int) (bytes / BlockLog.INDEX_ENTRY_BYTES);
+        }
+    }
+
+    // Liefert das gemappte Segment; das aktive Segment wird neu gemappt, wenn es gewachsen ist
+    private MappedByteBuffer segmentBuffer(int segmentNo, long requiredBytes) throws IOException {
+        while (segments.size() <= segmentNo) {
+            segments.add(null);
+        }
+        MappedByteBuffer segment = segments.get(segmentNo);
+        if (segment == null || segment.capacity() < requiredBytes) {
+            segment = mapSegment(segmentNo);
+        }
+        return segment;
+    }
+
+    private MappedByteBuffer mapSegment(int segmentNo) throws IOException {
+        Path path = BlockLog.segmentPath(dir, segmentNo);
+        if (!Files.exists(path)) {
+            throw new IOException("Segment fehlt: " + path);
+        }
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer segment = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            segments.set(segmentNo, segment);
+            return segment;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.fintech;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-sicherer Speicher für signierte, noch nicht geminte Transaktionen.
+ *
+ * Solange eine Transaktion wartet, ist ihr Betrag beim Absender reserviert
+ * ({@link #getPendingDebit}), damit mehrere offene Transaktionen kein Guthaben doppelt ausgeben.
+ * Die Reservierung endet erst mit {@link #confirm}, also nachdem der Block auf die Balancen angewendet wurde.
+ */
+public class Mempool {
+
+    /** Eine wartende Transaktion mit Eingangszeit und geschätzter Größe im Block. */
+    public record Entry(Transaction tx, long enqueuedNanos, int bytes) {}
+
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private final Map<String, Double> pendingDebits = new HashMap<>();
+    private long pendingBytes = 0;
+
+    // Statistik: Wartezeit vom Eingang bis zur Aufnahme in einen Block
+    private long includedCount = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+    private long lastWaitNanos = 0;
+
+    public synchronized void add(Transaction tx) {
+        enqueue(tx);
+        pendingDebits.merge(tx.getSender(), tx.getAmount(), Double::sum);
+    }
+
+    /**
+     * Reserviert einen Betrag beim Absender, bevor die Transaktion signiert wird
+     * (so kann außerhalb jedes Locks signiert werden). Danach {@link #addReserved} oder
+     * bei einem Fehler {@link #cancelReservation} aufrufen.
+     */
+    public synchronized boolean tryReserve(Wallet wallet, double amount, double margin) {
+        if (wallet.getBalance() - getPendingDebit(wallet.getAddress()) < amount + margin) return false;
+        pendingDebits.merge(wallet.getAddress(), amount, Double::sum);
+        return true;
+    }
+
+    public synchronized void cancelReservation(String address, double amount) {
+        pendingDebits.computeIfPresent(address, (addr, sum) -> {
+            double rest = sum - amount;
+            return rest > 1e-9 ? rest : null;
+        });
+    }
+
+    /** Wie {@link #add}, der Betrag wurde aber bereits mit {@link #tryReserve} reserviert. */
+    public synchronized void addReserved(Transaction tx) {
+        enqueue(tx);
+    }
+
+    private void enqueue(Transaction tx) {
+        Entry entry = new Entry(tx, System.nanoTime(), estimateSize(tx));
+        pending.addLast(entry);
+        pendingBytes += entry.bytes();
+    }
+
+    /**
+     * Entnimmt die ältesten Transaktionen, bis maxCount oder maxBytes erreicht ist
+     * (mindestens eine, falls vorhanden). Die Reservierungen bleiben bis {@link #confirm} bestehen.
+     */
+    public synchronized List<Entry> drain(int maxCount, long maxBytes) {
+        List<Entry> taken = new ArrayList<>(Math.min(maxCount, pending.size()));
+        long bytes = 0;
+        while (!pending.isEmpty() && taken.size() < maxCount) {
+            Entry next = pending.peekFirst();
+            if (!taken.isEmpty() && bytes + next.bytes() > maxBytes) break;
+            pending.pollFirst();
+            pendingBytes -= next.bytes();
+            bytes += next.bytes();
+            taken.add(next);
+        }
+
+        long now = System.nanoTime();
+        for (Entry e : taken) {
+            long wait = now - e.enqueuedNanos();
+            totalWaitNanos += wait;
+            maxWaitNanos = Math.max(maxWaitNanos, wait);
+            lastWaitNanos = wait;
+        }
+        includedCount += taken.size();
+        return taken;
+    }
+
+    /** Gibt die Reservierungen frei, sobald der Block auf die Balancen angewendet ist. */
+    public synchronized void confirm(List<Entry> included) {
+        for (Entry e : included) {
+            releaseDebit(e.tx());
+        }
+    }
+
+    /**
+     * Legt entnommene Transaktionen wieder vorne in die Warteschlange (Reihenfolge bleibt erhalten),
+     * z.B. wenn der Block nicht angehängt werden konnte. Die Reservierungen bleiben bestehen.
+     */
+    public synchronized void requeue(List<Entry> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry e = entries.get(i);
+            pending.addFirst(e);
+            pendingBytes += e.bytes();
+        }
+        includedCount -= entries.size();
+    }
+
+    // Verwirft alle wartenden Transaktionen (z.B. nach einem Ketten-Reset)
+    public synchronized int clear() {
+        int dropped = pending.size();
+        pending.clear();
+        pendingDebits.clear();
+        pendingBytes = 0;
+        return dropped;
+    }
+
+    private void releaseDebit(Transaction tx) {
+        cancelReservation(tx.getSender(), tx.getAmount());
+    }
+
+    /** Summe der noch nicht geminten Ausgänge einer Adresse. */
+    public synchronized double getPendingDebit(String address) {
+        return pendingDebits.getOrDefault(address, 0.0);
+    }
+
+    /** Verfügbares Guthaben = Ledger-Balance minus reservierte Beträge. */
+    public double getAvailableBalance(Wallet wallet) {
+        return wallet.getBalance() - getPendingDebit(wallet.getAddress());
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return pendingBytes;
+    }
+
+    /** Alter der ältesten wartenden Transaktion in ms (0, wenn leer). */
+    public synchronized long getOldestAgeMillis() {
+        Entry oldest = pending.peekFirst();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedNanos()) / 1_000_000;
+    }
+
+    public synchronized double getAverageWaitMillis() {
+        return includedCount == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / includedCount;
+    }
+
+    public synchronized double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    public synchronized double getLastWaitMillis() {
+        return lastWaitNanos / 1_000_000.0;
+    }
+
+    public synchronized long getIncludedCount() {
+        return includedCount;
+    }
+
+    // Grobe Größe im Block: Adressen, Nachricht, txId, Signatur und Betrag
+    static int estimateSize(Transaction tx) {
+        return tx.getSender().length() + tx.getRecipient().length()
+                + tx.getMessage().getBytes(StandardCharsets.UTF_8).length
+                + tx.getTxId().length() + tx.getSignature().length + Double.BYTES;
+    }
+}
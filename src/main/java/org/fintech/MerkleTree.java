@@ -0,0 +1,136 @@
+package org.fintech;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merkle-Baum über die txIds eines Blocks (SHA-256).
+ *
+ * Blätter und innere Knoten werden mit einem Präfix-Byte getrennt gehasht (0x00 bzw. 0x01),
+ * damit sich ein innerer Knoten nicht als Blatt ausgeben lässt. Bei ungerader Anzahl auf einer
+ * Ebene wird der letzte Knoten mit sich selbst kombiniert – die Wurzel unterscheidet daher nicht zwischen
+ * [a,b,c] und [a,b,c,c]; doppelte txIds lehnt der {@link ChainValidator} ab.
+ *
+ * Ein Inklusionsbeweis enthält nur die Geschwister-Hashes auf dem Weg zur Wurzel – O(log n) – und die
+ * Anzahl der Blätter. Mit ihr prüft {@link #verify} die Form des Pfads: Position im Bereich, passende
+ * Tiefe und die Selbst-Kombination am Ende ungerader Ebenen. Sonst ginge z.B. Index 3 in [a,b,c]
+ * (das verdoppelte c) als eigenes Blatt durch.
+ */
+public final class MerkleTree {
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final String EMPTY_ROOT = "0".repeat(64);
+
+    /** Beweis, dass txId an Position index von leafCount Blättern unter einer bestimmten Wurzel liegt. */
+    public record Proof(String txId, int index, int leafCount, List<String> siblings) {}
+
+    private MerkleTree() {}
+
+    public static String root(List<String> txIds) {
+        if (txIds.isEmpty()) return EMPTY_ROOT;
+
+        List<byte[]> level = leaves(txIds);
+        while (level.size() > 1) {
+            level = nextLevel(level);
+        }
+        return StringUtil.toHex(level.get(0));
+    }
+
+    /** Inklusionsbeweis für txId oder null, wenn die Transaktion nicht enthalten ist. */
+    public static Proof proof(List<String> txIds, String txId) {
+        int index = txIds.indexOf(txId);
+        if (index < 0) return null;
+
+        List<String> siblings = new ArrayList<>();
+        List<byte[]> level = leaves(txIds);
+        int position = index;
+        while (level.size() > 1) {
+            int siblingPos = (position % 2 == 0) ? Math.min(position + 1, level.size() - 1) : position - 1;
+            siblings.add(StringUtil.toHex(level.get(siblingPos)));
+            level = nextLevel(level);
+            position /= 2;
+        }
+        return new Proof(txId, index, txIds.size(), siblings);
+    }
+
+    /**
+     * Wie {@link #verify(Proof, String)}, die Blattanzahl kommt aber vom Prüfer (z.B. Transaktionsanzahl
+     * des Blocks) statt aus dem Beweis – die Wurzel allein legt sie nicht fest.
+     */
+    public static boolean verify(Proof proof, String expectedRoot, int leafCount) {
+        return proof != null && proof.leafCount() == leafCount && verify(proof, expectedRoot);
+    }
+
+    /** Prüft einen Beweis gegen eine Wurzel (z.B. {@link Block#getMerkleRoot()}). */
+    public static boolean verify(Proof proof, String expectedRoot) {
+        if (proof == null || expectedRoot == null) return false;
+        if (proof.index() < 0 || proof.index() >= proof.leafCount()) return false;
+
+        byte[] current = leaf(proof.txId());
+        int position = proof.index();
+        int levelSize = proof.leafCount();
+        for (String siblingHex : proof.siblings()) {
+            if (levelSize <= 1) return false; // mehr Geschwister als Ebenen
+            byte[] sibling = fromHex(siblingHex);
+            if (sibling == null) return false;
+            // Letzter Knoten einer ungeraden Ebene: sein Partner ist er selbst
+            if (position == levelSize - 1 && position % 2 == 0 && !Arrays.equals(sibling, current)) return false;
+            current = (position % 2 == 0) ? node(current, sibling) : node(sibling, current);
+            position /= 2;
+            levelSize = (levelSize + 1) / 2;
+        }
+        // Zu wenige Geschwister: der Pfad endet unterhalb der Wurzel
+        return levelSize == 1 && StringUtil.toHex(current).equals(expectedRoot);
+    }
+
+    // --- INTERN ---
+
+    private static List<byte[]> leaves(List<String> txIds) {
+        List<byte[]> level = new ArrayList<>(txIds.size());
+        for (String txId : txIds) {
+            level.add(leaf(txId));
+        }
+        return level;
+    }
+
+    private static List<byte[]> nextLevel(List<byte[]> level) {
+        List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+        for (int i = 0; i < level.size(); i += 2) {
+            byte[] left = level.get(i);
+            byte[] right = (i + 1 < level.size()) ? level.get(i + 1) : left;
+            next.add(node(left, right));
+        }
+        return next;
+    }
+
+    private static byte[] leaf(String txId) {
+        byte[] id = txId.getBytes(StandardCharsets.UTF_8);
+        byte[] input = new byte[1 + id.length];
+        input[0] = LEAF_PREFIX;
+        System.arraycopy(id, 0, input, 1, id.length);
+        return StringUtil.sha256(input);
+    }
+
+    private static byte[] node(byte[] left, byte[] right) {
+        byte[] input = new byte[1 + left.length + right.length];
+        input[0] = NODE_PREFIX;
+        System.arraycopy(left, 0, input, 1, left.length);
+        System.arraycopy(right, 0, input, 1 + left.length, right.length);
+        return StringUtil.sha256(input);
+    }
+
+    private static byte[] fromHex(String hex) {
+        if (hex == null || hex.length() != 64) return null;
+        byte[] out = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            int hi = Character.digit(hex.charAt(i * 2), 16);
+            int lo = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (hi < 0 || lo < 0) return null;
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return out;
+    }
+}
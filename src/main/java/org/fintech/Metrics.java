@@ -0,0 +1,136 @@
+package org.fintech;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Zentrale Registry für Betriebskennzahlen: Zähler, Messwerte (Gauges) und Latenz-Histogramme.
+ *
+ * Die Messstellen holen sich ihre Metrik einmal (statisches Feld) und aktualisieren sie ohne Sperre
+ * bzw. über das jeweilige {@link LatencyHistogram}. Gelesen wird nur beim Export – als Prometheus-Text
+ * ({@link #prometheusText()}, siehe {@link MetricsExporter}) oder als kompakter Log-Schnappschuss.
+ */
+public final class Metrics {
+
+    private Metrics() {}
+
+    /** Monoton steigender Zähler. */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() { value.increment(); }
+        public void add(long n) { value.add(n); }
+        public long get() { return value.sum(); }
+    }
+
+    private enum Type { COUNTER, GAUGE, HISTOGRAM }
+
+    private record Entry(String name, String help, Type type, Object metric) {}
+
+    private static final Map<String, Entry> REGISTRY = new ConcurrentSkipListMap<>();
+
+    // Quantile, die für jedes Histogramm exportiert werden
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // --- REGISTRIERUNG ---
+
+    /** Liefert den Zähler unter diesem Namen (legt ihn beim ersten Aufruf an). */
+    public static Counter counter(String name, String help) {
+        return (Counter) REGISTRY.computeIfAbsent(name, n -> new Entry(n, help, Type.COUNTER, new Counter())).metric();
+    }
+
+    /** Liefert das Histogramm unter diesem Namen (legt es beim ersten Aufruf an); Werte in Nanosekunden. */
+    public static LatencyHistogram histogram(String name, String help) {
+        return (LatencyHistogram) REGISTRY.computeIfAbsent(name, n -> new Entry(n, help, Type.HISTOGRAM, new LatencyHistogram())).metric();
+    }
+
+    /** Registriert ein bestehendes Histogramm (z.B. das eines Orderbuchs); ersetzt ein früheres gleichen Namens. */
+    public static void register(String name, String help, LatencyHistogram histogram) {
+        REGISTRY.put(name, new Entry(name, help, Type.HISTOGRAM, histogram));
+    }
+
+    /** Messwert, der erst beim Export abgefragt wird; ersetzt einen früheren gleichen Namens. */
+    public static void gauge(String name, String help, DoubleSupplier supplier) {
+        REGISTRY.put(name, new Entry(name, help, Type.GAUGE, supplier));
+    }
+
+    // --- EXPORT ---
+
+    /** Alle Metriken im Prometheus-Textformat (Histogramme als summary in Sekunden). */
+    public static String prometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Entry entry : REGISTRY.values()) {
+            String name = entry.name();
+            switch (entry.type()) {
+                case COUNTER -> {
+                    header(sb, name + "_total", entry.help(), "counter");
+                    sample(sb, name + "_total", ((Counter) entry.metric()).get());
+                }
+                case GAUGE -> {
+                    header(sb, name, entry.help(), "gauge");
+                    sample(sb, name, read((DoubleSupplier) entry.metric()));
+                }
+                case HISTOGRAM -> {
+                    header(sb, name, entry.help(), "summary");
+                    LatencyHistogram histogram = (LatencyHistogram) entry.metric();
+                    // Unter der Sperre des Histogramms: Quantile, Summe und Anzahl passen zusammen
+                    synchronized (histogram) {
+                        for (double q : QUANTILES) {
+                            sb.append(name).append("{quantile=\"").append(q).append("\"} ")
+                                    .append(format(histogram.percentile(q) / 1e9)).append('\n');
+                        }
+                        sample(sb, name + "_sum", histogram.getTotalNanos() / 1e9);
+                        sample(sb, name + "_count", histogram.getCount());
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Kompakter, menschenlesbarer Schnappschuss aller Metriken (eine Zeile pro Metrik). */
+    public static String logSnapshot() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("📊 Metriken:");
+        for (Entry entry : REGISTRY.values()) {
+            sb.append("\n  ").append(entry.name()).append(": ");
+            switch (entry.type()) {
+                case COUNTER -> sb.append(((Counter) entry.metric()).get());
+                case GAUGE -> sb.append(String.format("%.2f", read((DoubleSupplier) entry.metric())));
+                case HISTOGRAM -> sb.append(entry.metric());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, double value) {
+        sb.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    // Ein fehlerhafter Gauge darf den Export nicht abbrechen
+    private static double read(DoubleSupplier supplier) {
+        try {
+            return supplier.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    // Prometheus erwartet Punkt als Dezimaltrenner (unabhängig von der Locale) sowie NaN/+Inf/-Inf
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        return Double.toString(value);
+    }
+}
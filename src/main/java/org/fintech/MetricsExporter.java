@@ -0,0 +1,99 @@
+package org.fintech;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stellt die {@link Metrics} lokal bereit: als HTTP-Endpunkt /metrics im Prometheus-Textformat
+ * (nur auf der Loopback-Adresse) und optional als periodischer Schnappschuss auf der Konsole.
+ */
+public final class MetricsExporter {
+
+    public static final int DEFAULT_PORT = 9464;
+    public static final long DEFAULT_LOG_PERIOD_SECONDS = 60;
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static HttpServer server;
+    private static ExecutorService executor;
+    private static Timer logTimer;
+
+    private MetricsExporter() {}
+
+    /**
+     * Startet den Endpunkt http://127.0.0.1:&lt;port&gt;/metrics. Ist der Port belegt, wird das gemeldet
+     * und ohne Endpunkt weitergemacht.
+     */
+    public static synchronized void start(int port) {
+        if (server != null) return;
+        try {
+            HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            http.createContext("/metrics", MetricsExporter::handle);
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            });
+            http.setExecutor(executor);
+            http.start();
+            server = http;
+            System.out.println("📊 Metriken unter http://127.0.0.1:" + http.getAddress().getPort() + "/metrics");
+        } catch (IOException e) {
+            System.err.println("Metrik-Endpunkt auf Port " + port + " nicht verfügbar: " + e.getMessage());
+        }
+    }
+
+    /** Gibt alle periodSeconds Sekunden einen Schnappschuss der Metriken aus (0 = aus). */
+    public static synchronized void startLogging(long periodSeconds) {
+        if (logTimer != null || periodSeconds <= 0) return;
+        logTimer = new Timer("metrics-log", true);
+        long period = periodSeconds * 1000;
+        logTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                System.out.println(Metrics.logSnapshot());
+            }
+        }, period, period);
+    }
+
+    public static synchronized void stop() {
+        if (logTimer != null) {
+            logTimer.cancel();
+            logTimer = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+            executor = null;
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = Metrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
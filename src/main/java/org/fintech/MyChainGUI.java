@@ -22,7 +22,10 @@ public class MyChainGUI extends Application {
     private Blockchain blockchain;
     private ListView<String> blockList;
     private TextArea detailsArea;
-    private ListView<String> walletList;
+    private ListView<WalletRow> walletList;
+    // 🌟 NEU: Zeilen bleiben bestehen, pro Update werden nur geänderte Balancen übernommen
+    private final WalletListModel walletModel = new WalletListModel();
+    private Label walletStatsLabel;
     // Felder beibehalten, da sie in updateComboBoxes() verwendet werden
     private ComboBox<String> fromCombo;
     private ComboBox<String> toCombo;
@@ -36,7 +39,9 @@ public class MyChainGUI extends Application {
     private Label biasLabel;
     private LineChart<Number, Number> priceChart;
     private XYChart.Series<Number, Number> series;
-    private long timeIndex = 0;
+    // 🌟 NEU: Chart zeigt Kerzen aus dem TickRecorder statt gesampelter Einzelpreise
+    private ComboBox<TickRecorder.Interval> candleIntervalCombo;
+    private static final int CHART_CANDLES = 100;
 
     private final Wallet loggedInWallet;
 
@@ -66,24 +71,37 @@ public class MyChainGUI extends Application {
         // ------------------------------------------------------------------------------------
 
         blockchain = BlockchainPersistence.loadBlockchain("MyChain", 1);
-        double initialPrice = PriceSimulator.loadPrice(1.0);
+        // Ohne price.txt gilt der Preis aus dem letzten Snapshot
+        StateSnapshot snapshot = blockchain.getSnapshot();
+        double initialPrice = PriceSimulator.loadPrice(snapshot != null ? snapshot.price() : 1.0);
         this.priceSimulator = new PriceSimulator(initialPrice);
 
         networkSimulator = new NetworkSimulator(blockchain, WalletManager, priceSimulator);
+        // 🌟 NEU: Metriken lokal für Prometheus und als Konsolen-Schnappschuss
+        MetricsExporter.start(MetricsExporter.DEFAULT_PORT);
+        MetricsExporter.startLogging(MetricsExporter.DEFAULT_LOG_PERIOD_SECONDS);
 
         // 🛑 KORREKTUR: Update-Logik um Chart-Aktualisierung erweitert
-        networkSimulator.setOnUpdate(() -> {
-            updateWalletList();
-            updateComboBoxes();
-            updateBlockList();
-            // Chart-Update im FX-Thread
-            Platform.runLater(this::updatePriceChart);
-            if (!blockchain.getChain().isEmpty()) {
-                blockList.getSelectionModel().select(blockchain.getChain().size() - 1);
+        networkSimulator.setListener(new SimulationListener() {
+            @Override
+            public void onChainUpdated() {
+                Platform.runLater(() -> {
+                    updateWalletList();
+                    updateComboBoxes();
+                    updateBlockList();
+                    // Chart-Update im FX-Thread
+                    Platform.runLater(MyChainGUI.this::updatePriceChart);
+                    if (blockchain.size() > 0) {
+                        blockList.getSelectionModel().select(blockchain.size() - 1);
+                    }
+                });
             }
-        });
 
-        networkSimulator.setOnPriceUpdate(this::updatePriceLabel);
+            @Override
+            public void onPriceUpdated(double price) {
+                Platform.runLater(MyChainGUI.this::updatePriceLabel);
+            }
+        });
 
         stage.setTitle("SimpleCoin Explorer – Deine eigene Kryptowährung");
         BorderPane root = new BorderPane();
@@ -111,8 +129,10 @@ public class MyChainGUI extends Application {
         detailsArea.setPrefHeight(300);
         detailsArea.setStyle("-fx-font-family: 'Consolas'; -fx-font-size: 12;");
 
-        walletList = new ListView<>();
+        walletList = new ListView<>(walletModel.getRows());
         walletList.setPrefHeight(150);
+        walletStatsLabel = new Label();
+        setupWalletCells();
         updateWalletList();
         setupWalletDoubleClick();
 
@@ -193,13 +213,13 @@ public class MyChainGUI extends Application {
         sortKeyCombo = new ComboBox<>();
         sortKeyCombo.getItems().addAll("SC Balance", "USD Balance", "Initial USD", "Adresse");
         sortKeyCombo.setValue("SC Balance");
-        sortKeyCombo.setOnAction(e -> updateWalletList());
+        sortKeyCombo.setOnAction(e -> applyWalletSort());
 
         sortDirectionButton = new Button("↓ Desc");
         sortDirectionButton.setOnAction(e -> {
             isAscending = !isAscending;
             sortDirectionButton.setText(isAscending ? "↑ Asc" : "↓ Desc");
-            updateWalletList();
+            applyWalletSort();
         });
 
         HBox sortControls = new HBox(10, new Label("Sortieren nach:"), sortKeyCombo, sortDirectionButton);
@@ -230,7 +250,9 @@ public class MyChainGUI extends Application {
 
         VBox walletBox = new VBox(10,
                 new Label("Wallet-Übersicht:"),
+                new Label(WalletRow.HEADER),
                 walletList,
+                walletStatsLabel,
                 sortControls,
                 walletButtons
         );
@@ -256,8 +278,13 @@ public class MyChainGUI extends Application {
 
         stage.setOnCloseRequest(e -> {
             PriceSimulator.savePrice(priceSimulator.getCurrentPrice());
-            org.fintech.WalletManager.saveWallets();
             if (networkSimulator != null) networkSimulator.stop();
+            // Ausstehende Blöcke/Wallets im Hintergrund-Writer noch schreiben
+            PersistenceWriter.shutdown();
+            org.fintech.WalletManager.saveWallets();
+            BlockchainPersistence.saveBlockchain(blockchain);
+            BlockchainPersistence.close();
+            MetricsExporter.stop();
         });
 
         // 🛑 KORREKTUR 2: ComboBoxen mit Daten befüllen, bevor setValue aufgerufen wird.
@@ -275,18 +302,18 @@ public class MyChainGUI extends Application {
         }
     }
 
-    private Comparator<Wallet> getWalletComparator() {
+    private Comparator<WalletRow> getWalletComparator() {
         String key = sortKeyCombo.getValue();
 
         int direction = isAscending ? 1 : -1;
 
-        Comparator<Wallet> comparator = switch (key) {
-            case "USD Balance" -> Comparator.comparingDouble(Wallet::getUsdBalance);
-            case "Initial USD" -> Comparator.comparingDouble(Wallet::getInitialUsdBalance);
-            case "Adresse" -> Comparator.comparing(Wallet::getAddress);
-            case "SC Balance" -> Comparator.comparingDouble(Wallet::getBalance);
+        Comparator<WalletRow> comparator = switch (key) {
+            case "USD Balance" -> Comparator.comparingDouble(WalletRow::getUsdBalance);
+            case "Initial USD" -> Comparator.comparingDouble(WalletRow::getInitialUsdBalance);
+            case "Adresse" -> Comparator.comparing(WalletRow::getAddress);
+            case "SC Balance" -> Comparator.comparingDouble(WalletRow::getBalance);
 
-            default -> Comparator.comparingDouble(Wallet::getBalance);
+            default -> Comparator.comparingDouble(WalletRow::getBalance);
         };
 
         return direction == 1 ? comparator : comparator.reversed();
@@ -322,17 +349,19 @@ public class MyChainGUI extends Application {
 
     private void updateBlockList() {
         blockList.getItems().clear();
-        int i = 0;
-        for (Block b : blockchain.getChain()) {
+        // Nur Header: die Transaktionen werden erst in showBlockDetails geladen.
+        // Nach einem Snapshot beginnt die Kette bei ihrer Basis
+        for (BlockHeader h : blockchain.getHeaders(blockchain.getBaseHeight(), blockchain.size())) {
             blockList.getItems().add(String.format("Block #%d | %.16s... | %d Tx | Nonce: %d",
-                    i++, b.getHash(), b.getTransactions().size(), b.getNonce()));
+                    h.height(), h.hash(), h.txCount(), h.nonce()));
         }
     }
 
     private void showBlockDetails(String selected) {
-        int idx = blockList.getSelectionModel().getSelectedIndex();
-        if (idx < 0) return;
-        Block block = blockchain.getChain().get(idx);
+        int position = blockList.getSelectionModel().getSelectedIndex();
+        if (position < 0) return;
+        int idx = blockchain.getBaseHeight() + position;
+        Block block = blockchain.getBlock(idx);
 
         StringBuilder sb = new StringBuilder();
         sb.append("BLOCK #").append(idx).append("\n");
@@ -360,13 +389,13 @@ public class MyChainGUI extends Application {
         // 1. Achsen definieren
         final NumberAxis xAxis = new NumberAxis();
         final NumberAxis yAxis = new NumberAxis();
-        xAxis.setLabel("Zeit (in Updates)");
+        xAxis.setLabel("Kerzen vor jetzt");
         yAxis.setLabel("Preis (USD)");
         yAxis.setForceZeroInRange(false);
 
         // 2. Chart erstellen
         priceChart = new LineChart<>(xAxis, yAxis);
-        priceChart.setTitle("Live SC Preisentwicklung (1-Sekunden-Takt)");
+        priceChart.setTitle("Live SC Preisentwicklung (Schlusskurse)");
         priceChart.setPrefHeight(300);
         priceChart.setAnimated(false);
         priceChart.setLegendVisible(false);
@@ -376,106 +405,77 @@ public class MyChainGUI extends Application {
         series.setName("SC Preis");
         priceChart.getData().add(series);
 
-        // Initialen Preis hinzufügen
-        series.getData().add(new XYChart.Data<>(timeIndex, priceSimulator.getCurrentPrice()));
+        candleIntervalCombo = new ComboBox<>();
+        candleIntervalCombo.getItems().addAll(TickRecorder.Interval.values());
+        candleIntervalCombo.setValue(TickRecorder.Interval.SECOND);
+        candleIntervalCombo.setOnAction(e -> updatePriceChart());
 
-        return new VBox(priceChart);
+        updatePriceChart();
+
+        return new VBox(5, new HBox(10, new Label("Intervall:"), candleIntervalCombo), priceChart);
     }
 
     /**
-     * Aktualisiert das Liniendiagramm mit dem aktuellen Preis (im FX-Thread aufgerufen).
+     * Zeichnet die letzten Kerzen des gewählten Intervalls (im FX-Thread aufgerufen).
+     * Die Kerzen werden beim Handel fortgeschrieben – hier wird nur gelesen, kein Tick neu ausgewertet.
      */
     private void updatePriceChart() {
-        if (priceChart != null) {
-            timeIndex++;
-            double currentPrice = priceSimulator.getCurrentPrice();
-
-            // Fügt den neuen Datenpunkt hinzu
-            series.getData().add(new XYChart.Data<>(timeIndex, currentPrice));
-
-            // Optional: Hält das Chart auf die letzten 100 Punkte begrenzt
-            if (series.getData().size() > 100) {
-                series.getData().remove(0);
-                // Die Achse muss neu skaliert werden, damit der Zeitindex bei 0 beginnt (visuell)
-                ((NumberAxis) priceChart.getXAxis()).setLowerBound(timeIndex - 100);
-                ((NumberAxis) priceChart.getXAxis()).setUpperBound(timeIndex);
-            }
+        if (priceChart == null) return;
+
+        TickRecorder.Interval interval = candleIntervalCombo.getValue();
+        List<Candle> candles = priceSimulator.getTickRecorder().candles(interval, CHART_CANDLES);
+        if (candles.isEmpty()) return;
+
+        long newest = candles.get(candles.size() - 1).startMillis();
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(candles.size());
+        for (Candle c : candles) {
+            points.add(new XYChart.Data<>((c.startMillis() - newest) / interval.getMillis(), c.close()));
         }
+        series.getData().setAll(points);
     }
 
 
+    /**
+     * Gleicht die Wallet-Übersicht ab: nur geänderte Zeilen werden neu gezeichnet, und formatiert
+     * wird erst in den sichtbaren Zellen. Die Dauer im FX-Thread steht unter der Liste.
+     */
     private void updateWalletList() {
-        // 1. Sortierung anwenden
-        List<Wallet> sortedWallets = new ArrayList<>(org.fintech.WalletManager.getWallets());
-
-        if (sortKeyCombo != null && sortKeyCombo.getValue() != null) {
-            sortedWallets.sort(getWalletComparator());
+        if (walletModel.update()) {
+            // Hervorhebung der reichsten Wallet hat gewechselt → sichtbare Zellen neu zeichnen
+            walletList.refresh();
         }
+        walletStatsLabel.setText(String.format("%d Wallets, %d geändert, Update %.2f ms",
+                walletModel.getRows().size(), walletModel.getLastChangedRows(), walletModel.getLastUpdateNanos() / 1_000_000.0));
+    }
 
-        // 2. Reichste Wallet finden (zur Hervorhebung, basierend auf SC)
-        Wallet richestUser = sortedWallets.stream()
-                .filter(w -> !w.getAddress().equals(org.fintech.WalletManager.SUPPLY_WALLET.getAddress()))
-                .max(Comparator.comparingDouble(Wallet::getBalance))
-                .orElse(null);
-
-        walletList.getItems().clear();
-
-        // Header für die Liste hinzufügen
-        String header = String.format("%-6s | %-25s | %10s | %10s | %s", "ID", "Adresse", "SC Balance", "USD Balance", "Initial USD");
-        walletList.getItems().add(header);
-
-        for (Wallet w : sortedWallets) {
-            String idString = String.valueOf(w.getUniqueId());
-            String shortAddr = w.getAddress().substring(0, Math.min(25, w.getAddress().length())) + "...";
-
-            String entry = String.format("%-6s | %-25s | %10.3f SC | %10.2f USD | %7.2f $",
-                    idString + "...",
-                    shortAddr,
-                    w.getBalance(),
-                    w.getUsdBalance(),
-                    w.getInitialUsdBalance());
-            walletList.getItems().add(entry);
-        }
+    private void applyWalletSort() {
+        walletModel.setComparator(getWalletComparator());
+    }
 
+    // Zellen werden einmal eingerichtet und vom ListView nur für sichtbare Zeilen wiederverwendet
+    private void setupWalletCells() {
         final String loggedInAddress = loggedInWallet != null ? loggedInWallet.getAddress() : null;
-        final Wallet finalRichestUser = richestUser;
-        final List<Wallet> finalSortedWallets = sortedWallets;
+        final String supplyAddress = org.fintech.WalletManager.SUPPLY_WALLET.getAddress();
 
         walletList.setCellFactory(lv -> new ListCell<>() {
             @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
+            protected void updateItem(WalletRow row, boolean empty) {
+                super.updateItem(row, empty);
 
-                if (empty || item == null) {
+                if (empty || row == null) {
                     setText(null); setTooltip(null); setStyle("");
                     return;
                 }
 
-                setText(item);
-
-                if (getIndex() == 0) {
-                    setStyle("-fx-font-weight: bold; -fx-background-color: #f0f0f0;");
-                    setTooltip(null);
-                    return;
-                }
-
-                int walletIndex = getIndex() - 1;
-
-                if (walletIndex < 0 || walletIndex >= finalSortedWallets.size()) {
-                    setStyle("");
-                    setTooltip(null);
-                    return;
-                }
-
-                Wallet currentWallet = finalSortedWallets.get(walletIndex);
-                setTooltip(new Tooltip(currentWallet.getAddress()));
+                setText(row.format());
+                setTooltip(new Tooltip(row.getAddress()));
 
                 // Hervorhebungs-Logik:
-                if (loggedInAddress != null && currentWallet.getAddress().equals(loggedInAddress)) {
+                if (loggedInAddress != null && row.getAddress().equals(loggedInAddress)) {
                     setStyle("-fx-background-color: #fce883; -fx-text-fill: #333333; -fx-font-weight: bold;");
-                } else if (currentWallet.getAddress().equals(org.fintech.WalletManager.SUPPLY_WALLET.getAddress())) {
+                } else if (row.getAddress().equals(supplyAddress)) {
                     setStyle("-fx-background-color: #d1e7f7; -fx-text-fill: #333333; -fx-font-style: italic;");
-                } else if (finalRichestUser != null && currentWallet.getAddress().equals(finalRichestUser.getAddress())) {
+                } else if (row.getAddress().equals(walletModel.getRichestAddress())) {
                     setStyle("-fx-background-color: #d4edda; -fx-text-fill: #155724; -fx-font-weight: bold;");
                 } else {
                     setStyle("");
@@ -488,22 +488,7 @@ public class MyChainGUI extends Application {
         walletList.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && !walletList.getSelectionModel().isEmpty()) {
 
-                int selectedIndex = walletList.getSelectionModel().getSelectedIndex();
-                if (selectedIndex == 0) return;
-
-                List<Wallet> sortedWallets = new ArrayList<>(org.fintech.WalletManager.getWallets());
-                if (sortKeyCombo != null && sortKeyCombo.getValue() != null) {
-                    sortedWallets.sort(getWalletComparator());
-                }
-
-                int walletIndex = selectedIndex - 1;
-
-                if (walletIndex < 0 || walletIndex >= sortedWallets.size()) {
-                    System.err.println("Fehler: Wallet Index " + walletIndex + " außerhalb der Grenzen " + sortedWallets.size() + " beim Doppelklick.");
-                    return;
-                }
-
-                Wallet w = sortedWallets.get(walletIndex);
+                Wallet w = walletList.getSelectionModel().getSelectedItem().getWallet();
 
                 Stage detailStage = new Stage();
                 detailStage.setTitle("Wallet-Details: " + w.getAddress().substring(0, 16) + "...");
@@ -565,17 +550,9 @@ public class MyChainGUI extends Application {
     }
 
     private List<Transaction> getWalletTransactions(String address) {
-        List<Transaction> txs = new ArrayList<>();
-        if (blockchain == null) return txs;
-
-        for (Block block : blockchain.getChain()) {
-            for (Transaction tx : block.getTransactions()) {
-                if (tx.getSender().equals(address) || tx.getRecipient().equals(address)) {
-                    txs.add(tx);
-                }
-            }
-        }
-        return txs;
+        if (blockchain == null) return new ArrayList<>();
+        // 🌟 NEU: über den Adress-Index statt Scan der ganzen Kette
+        return blockchain.getTransactionsFor(address);
     }
 
     private void addDetailRow(GridPane grid, int row, String label, String value) {
@@ -589,14 +566,13 @@ public class MyChainGUI extends Application {
     }
 
     private long countTransactions(Wallet w) {
-        return blockchain.getChain().stream()
-                .flatMap(b -> b.getTransactions().stream())
-                .filter(tx -> tx.getSender().equals(w.getAddress()) || tx.getRecipient().equals(w.getAddress()))
-                .count();
+        return blockchain.countTransactionsFor(w.getAddress());
     }
 
     private boolean isGenesisWallet(Wallet w) {
         if (blockchain.getChain().isEmpty()) return false;
+        // Genesis Block entfernt: er ging immer an die Supply Wallet
+        if (blockchain.getBaseHeight() > 0) return w.getAddress().equals(org.fintech.WalletManager.SUPPLY_WALLET.getAddress());
         return blockchain.getChain().get(0).getTransactions().stream()
                 .anyMatch(tx -> tx.getRecipient().equals(w.getAddress()) && tx.getAmount() >= 1000.0);
     }
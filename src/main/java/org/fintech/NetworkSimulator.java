@@ -1,9 +1,9 @@
 package org.fintech;
 
-import javafx.application.Platform;
 import java.util.*;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -13,14 +13,24 @@ public class NetworkSimulator {
     private final WalletManager walletManager;
     private final PriceSimulator priceSimulator;
 
+    // 🌟 NEU: Trades landen im Mempool, der Assembler schneidet daraus Blöcke
+    private final Mempool mempool = new Mempool();
+    private final BlockAssembler blockAssembler;
+    // 🌟 NEU: Nebenläufige Trader-Agenten statt einer Timer-Kette
+    private final TradingEngine tradingEngine;
+    // 🌟 NEU: Trades werden im Orderbuch gematcht statt direkt gegen die Supply Wallet getauscht
+    private final Exchange exchange;
+
     private Timer walletTimer;
-    private Timer transactionTimer;
     private Timer updateTimer;
     private Timer priceUpdateTimer;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private Runnable onUpdateCallback;
-    private Runnable onPriceUpdateCallback;
+    private final AtomicBoolean snapshotPending = new AtomicBoolean(false);
+    // 🌟 NEU: UI-Rückmeldungen über eine Schnittstelle statt direkt über Platform.runLater
+    private volatile SimulationListener listener = SimulationListener.NONE;
+    // Pro-Trade-Ausgabe auf der Konsole (im Headless-Modus bei hohen Raten abschaltbar)
+    private volatile boolean verbose = true;
 
     // Konfiguration der Wallet-Generierung
     private static final long MIN_WALLET_CREATION_PERIOD = 100;
@@ -31,33 +41,77 @@ public class NetworkSimulator {
 
     // Konfiguration der Marktstimmung
     private double buyBias = 0.50;
+    // Anteil der Orders, die als Limit-Order ins Buch gestellt werden (Rest: Market-Orders)
+    private static final double LIMIT_ORDER_SHARE = 0.2;
+    // Abstand der Limit-Orders vom aktuellen Preis (zufällig bis zu diesem Anteil)
+    private static final double MAX_LIMIT_OFFSET = 0.003;
 
     // 🌟 KONSTANTEN: Dateigröße und Pfade
     private static final long MAX_FILE_SIZE_BYTES = 1 * 1024 * 1024; // 2 MB Limit
-    private static final String BLOCKCHAIN_FILE_PATH = "blockchain.json"; // 🛑 KORRIGIERTER PFAD
+    // 🌟 NEU: Abstand der Zustands-Snapshots in Blöcken
+    private static final int SNAPSHOT_INTERVAL = 500;
 
     // Konfiguration der GUI-Aktualisierung
     private static final long GUI_UPDATE_PERIOD = 10000; // 10 Sekunden für Chart/Listen
 
-    // HANDELS-GESCHWINDIGKEITSANALYSE
-    private static final long INITIAL_MIN_DELAY = 900;
-    // 🛑 DELAY RESET: Muss beim Start neu gesetzt werden
-    private static long currentTradeMinDelay = INITIAL_MIN_DELAY;
+    // 🌟 NEU: Handels-Metriken (über alle Simulator-Instanzen)
+    private static final Metrics.Counter TRADES_EXECUTED = Metrics.counter("mychain_trades_executed", "Ausgeführte Orders");
+    private static final Metrics.Counter TRADES_REJECTED = Metrics.counter("mychain_trades_rejected", "Abgelehnte Orders (z.B. zu wenig Guthaben)");
+    private static final LatencyHistogram TRADE_LATENCY = Metrics.histogram("mychain_trade_latency_seconds", "Zeit von der Order-Erzeugung bis zur Ausführung");
 
     public NetworkSimulator(Blockchain blockchain, WalletManager walletManager, PriceSimulator priceSimulator) {
         this.blockchain = blockchain;
         this.walletManager = walletManager;
         this.priceSimulator = priceSimulator;
+        this.blockAssembler = new BlockAssembler(blockchain, mempool, this::onBlockAdded);
+        this.exchange = new Exchange(mempool, priceSimulator);
+        this.tradingEngine = new TradingEngine(this::createOrder, this::executeOrder);
+
+        // Gauges zeigen immer auf den zuletzt erzeugten Simulator
+        Metrics.gauge("mychain_trades_per_second", "Ausgeführte Orders pro Sekunde seit dem Start", tradingEngine::getExecutedRate);
+        Metrics.gauge("mychain_order_queue_depth", "Wartende Orders der Trading-Engine", tradingEngine::getQueueDepth);
+        Metrics.gauge("mychain_mempool_size", "Transaktionen im Mempool", mempool::size);
+        Metrics.register("mychain_order_match_seconds", "Matching-Zeit pro Trader-Order im Orderbuch", exchange.getMatchLatency());
     }
 
     // --- ÖFFENTLICHE API ---
 
-    public void setOnUpdate(Runnable callback) {
-        this.onUpdateCallback = callback;
+    public void setListener(SimulationListener listener) {
+        this.listener = listener != null ? listener : SimulationListener.NONE;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public PriceSimulator getPriceSimulator() {
+        return priceSimulator;
+    }
+
+    public Mempool getMempool() {
+        return mempool;
+    }
+
+    public BlockAssembler getBlockAssembler() {
+        return blockAssembler;
+    }
+
+    public TradingEngine getTradingEngine() {
+        return tradingEngine;
+    }
+
+    public Exchange getExchange() {
+        return exchange;
     }
 
-    public void setOnPriceUpdate(Runnable callback) {
-        this.onPriceUpdateCallback = callback;
+    /** Anzahl gleichzeitig handelnder Agenten (wirkt beim nächsten Start). */
+    public void setTraderCount(int count) {
+        tradingEngine.setConcurrency(count);
+    }
+
+    /** Ziel-Handelsrate aller Agenten zusammen in Trades pro Sekunde (wirkt sofort). */
+    public void setTargetTradeRate(double tradesPerSecond) {
+        tradingEngine.setTargetRate(tradesPerSecond);
     }
 
     public boolean isRunning() {
@@ -72,7 +126,6 @@ public class NetworkSimulator {
         if (running.getAndSet(true)) return;
 
         // 🛑 NEUSTART-LOGIK: Setzt die Delays auf die Startwerte zurück
-        currentTradeMinDelay = INITIAL_MIN_DELAY;
         this.currentWalletCreationPeriod = 1000;
         // -----------------------------------------------------------------
 
@@ -82,8 +135,8 @@ public class NetworkSimulator {
         startWalletGeneration();
 
         // HANDELS-SIMULATION STARTEN
-        transactionTimer = new Timer(true);
-        scheduleNextTrade(5);
+        blockAssembler.start();
+        tradingEngine.start();
 
         // GUI-AKTUALISIERUNGS-TIMER STARTEN (10 Sekunden)
         updateTimer = new Timer(true);
@@ -109,10 +162,11 @@ public class NetworkSimulator {
 
         stopWalletGeneration();
 
-        if (transactionTimer != null) {
-            transactionTimer.cancel();
-            transactionTimer = null;
-        }
+        // Agenten stoppen, bereits eingereihte Orders werden noch ausgeführt
+        tradingEngine.stop();
+        // Ruhende Orders zurückziehen, damit hinterlegte USD/SC wieder frei sind
+        exchange.cancelAll();
+        System.out.println(exchange.statsSummary());
 
         if (updateTimer != null) {
             updateTimer.cancel();
@@ -124,6 +178,9 @@ public class NetworkSimulator {
             priceUpdateTimer = null;
         }
 
+        // Noch wartende Trades in Blöcke schreiben
+        blockAssembler.stop();
+
         System.out.println("=== NETZWERK-SIMULATION GESTOPPT ===");
     }
 
@@ -150,28 +207,13 @@ public class NetworkSimulator {
     // --- INTERNE HILFSMETHODEN ---
 
     private void triggerUpdate() {
-        if (onUpdateCallback != null) {
-            Platform.runLater(onUpdateCallback);
-        }
+        listener.onChainUpdated();
     }
 
     private void triggerPriceUpdate() {
-        if (onPriceUpdateCallback != null) {
-            Platform.runLater(onPriceUpdateCallback);
-        }
-    }
-
-    private static synchronized long getAndSetCurrentTradeMinDelay(int userCount, long minDelayBase, int reductionFactor, long minDelayFast) {
-        long oldDelay = currentTradeMinDelay;
-
-        long delayReduction = (long) userCount * reductionFactor;
-        long newDelay = Math.max(minDelayFast, minDelayBase - delayReduction);
-
-        currentTradeMinDelay = newDelay;
-        return oldDelay;
+        listener.onPriceUpdated(priceSimulator.getCurrentPrice());
     }
 
-
     private void scheduleNextWalletCreation(long delay) {
         if (!running.get() || walletTimer == null) return;
 
@@ -192,8 +234,7 @@ public class NetworkSimulator {
                             userWalletCount, (double)currentWalletCreationPeriod, currentWalletCreationPeriod / 1000.0);
                 }
 
-                Platform.runLater(() -> {
-                });
+                listener.onWalletCreated(newWallet);
 
                 scheduleNextWalletCreation(currentWalletCreationPeriod);
             }
@@ -201,181 +242,156 @@ public class NetworkSimulator {
     }
 
 
-    private void scheduleNextTrade(long delay) {
-        if (!running.get() || transactionTimer == null) return;
-
-        transactionTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (!running.get()) return;
-
-                simulateTrade();
-
-                // 🛑 WICHTIG: Nutzt die historische maximale Anzahl an Wallets für die Geschwindigkeit
-                int userWalletCount = WalletManager.getMaxWalletCountForSimulation();
-
-                long maxDelayBase = 900;
-                long minDelayBase = 300;
-                long minDelayFast = 10;
-                int reductionFactor = 1;
-
-                long delayReduction = (long) userWalletCount * reductionFactor;
-
-                long actualMinDelay = Math.max(minDelayFast, minDelayBase - delayReduction);
-                long actualMaxDelay = Math.max(actualMinDelay, maxDelayBase - delayReduction);
-
-                long oldActualMinDelay = getAndSetCurrentTradeMinDelay(userWalletCount, minDelayBase, reductionFactor, minDelayFast);
-
-                if (actualMinDelay != oldActualMinDelay) {
-                    System.out.printf("--- HANDELS-SCHWELLE GEÄNDERT (%d Wallets)! Neue Handelsspanne: %.0fms - %.0fms ---%n",
-                            userWalletCount, (double)actualMinDelay, (double)actualMaxDelay);
-                }
-
-                long range = actualMaxDelay - actualMinDelay + 1;
-                long nextDelay = actualMinDelay + new Random().nextInt((int) range);
-
-                scheduleNextTrade(nextDelay);
-            }
-        }, delay);
-    }
-
     /**
-     * Prüft die Größe der Blockchain-Datei und setzt die Kette bis auf den Genesis Block zurück,
-     * falls das Limit überschritten wird.
-     * @return true, wenn die Kette zurückgesetzt wurde.
+     * Schreibt alle SNAPSHOT_INTERVAL Blöcke einen Zustands-Snapshot (Balancen + Preis). Überschreitet
+     * das Block-Log das Limit, werden die Blöcke unter dem Snapshot entfernt – statt wie früher die ganze
+     * Kette auf den Genesis Block zurückzusetzen. Balancen und Preis bleiben dabei erhalten.
+     *
+     * Beides läuft mit dem nächsten Commit des {@link PersistenceWriter} (und damit nach dessen
+     * Durability-Modus), nicht auf dem Block-Pfad.
      */
-    private boolean checkAndResetChain() {
-        try {
-            java.io.File file = new java.io.File(BLOCKCHAIN_FILE_PATH);
-
-            if (file.exists() && file.length() > MAX_FILE_SIZE_BYTES) {
-                System.out.printf("🚨 ALARM: Blockchain-Datei (%.2f MB) überschreitet Limit (%.2f MB). Wird auf Genesis Block zurückgesetzt...%n",
-                        file.length() / (1024.0 * 1024.0), MAX_FILE_SIZE_BYTES / (1024.0 * 1024.0));
-
-                // 1. Kette zurücksetzen, behält Genesis Block (#0)
-                blockchain.resetChain();
-
-                // 2. Wallets neu berechnen: Setzt die Balancen auf den Stand nach der Genesis-Transaktion zurück.
-                WalletManager.recalculateAllBalances();
-                WalletManager.saveWallets();
-
-                // 3. Neue (kleine) Kette speichern (überschreibt die alte, große Datei)
-                BlockchainPersistence.saveBlockchain(blockchain);
-
-                // Da ein Reset die Chain verändert, muss ein UI Update an den Update-Timer gesendet werden.
-                triggerUpdate();
-
-                return true;
+    private void checkSnapshot() {
+        StateSnapshot last = blockchain.getSnapshot();
+        if (blockchain.size() - (last != null ? last.height() : 0) < SNAPSHOT_INTERVAL) return;
+        // Bis der Auftrag gelaufen ist, nicht bei jedem weiteren Block einen neuen einreihen
+        if (!snapshotPending.compareAndSet(false, true)) return;
+
+        double price = priceSimulator.getCurrentPrice();
+        PersistenceWriter.afterCommit(() -> {
+            try {
+                BlockchainPersistence.createSnapshot(blockchain, price);
+                if (BlockchainPersistence.getStorageSizeBytes() > MAX_FILE_SIZE_BYTES) {
+                    int before = blockchain.getBaseHeight();
+                    if (BlockchainPersistence.prune(blockchain) > before) {
+                        // Die Blockliste der GUI beginnt jetzt bei der neuen Basis
+                        triggerUpdate();
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Fehler beim Snapshot/Kürzen der Blockchain: " + e.getMessage());
+            } finally {
+                snapshotPending.set(false);
             }
-        } catch (Exception e) {
-            System.err.println("Fehler bei der Überprüfung/Zurücksetzung der Blockchain-Datei: " + e.getMessage());
-        }
-        return false;
+        });
     }
 
 
-    private boolean simulateTrade() {
+    // Agent: wählt Wallet, Richtung und Anteil (wird auf einem virtuellen Thread aufgerufen)
+    private TradingEngine.Order createOrder(Random r) {
         // 1. Initialisierung und Vorbereitung
         List<Wallet> allWallets = WalletManager.getWallets();
         Wallet supplyWallet = WalletManager.SUPPLY_WALLET;
-        Random r = new Random();
 
-        List<Wallet> userWallets = allWallets.stream()
-                .filter(w -> !w.getAddress().equals(supplyWallet.getAddress()))
-                .toList();
+        if (allWallets.size() < 2) return null;
+
+        // 2. Auswahl der Wallet (ohne Supply Wallet) und Handelsrichtung
+        Wallet tradingWallet;
+        do {
+            tradingWallet = allWallets.get(r.nextInt(allWallets.size()));
+        } while (tradingWallet == supplyWallet);
 
-        if (userWallets.isEmpty()) return false;
+        boolean mustBuy = mempool.getAvailableBalance(tradingWallet) < 0.01;
+        boolean isBuy = mustBuy || r.nextDouble() < this.buyBias;
 
-        // 2. Auswahl der Wallet und Handelsrichtung
-        Wallet tradingWallet = userWallets.get(r.nextInt(userWallets.size()));
+        final double MIN_PERCENTAGE = 0.33;
+        final double MAX_PERCENTAGE = 0.95;
 
-        boolean mustBuy = tradingWallet.getBalance() < 0.01;
+        double actualTradePercentage = MIN_PERCENTAGE + (MAX_PERCENTAGE - MIN_PERCENTAGE) * r.nextDouble();
+        return new TradingEngine.Order(tradingWallet, isBuy, actualTradePercentage, System.nanoTime());
+    }
 
-        boolean isBuy;
-        if (mustBuy) {
-            isBuy = true;
-        } else {
-            isBuy = r.nextDouble() < this.buyBias;
-            System.out.println(buyBias);
+    // Executor: Betrag zum aktuellen Preis bestimmen, signieren und in den Mempool geben
+    private boolean executeOrder(TradingEngine.Order order) {
+        Wallet tradingWallet = order.wallet();
+        boolean executed = false;
+        try {
+            // Pro Wallet serialisieren: USD-Balance und Mempool-Reservierung dürfen nicht doppelt verplant werden
+            synchronized (tradingWallet) {
+                executed = executeOrderLocked(order, tradingWallet);
+            }
+            return executed;
+        } finally {
+            if (executed) {
+                TRADES_EXECUTED.increment();
+                TRADE_LATENCY.record(System.nanoTime() - order.createdNanos());
+            } else {
+                TRADES_REJECTED.increment();
+            }
         }
+    }
 
-        // 3. Berechnung des Handelsbetrags
-        double currentPrice = priceSimulator.getCurrentPrice();
+    private boolean executeOrderLocked(TradingEngine.Order order, Wallet tradingWallet) {
+        boolean isBuy = order.buy();
+        double actualTradePercentage = order.fraction();
 
-        final double MIN_PERCENTAGE = 0.33;
-        final double MAX_PERCENTAGE = 0.95;
+        // Verfügbar = Balance minus noch nicht geminte Ausgänge im Mempool
+        double availableSC = mempool.getAvailableBalance(tradingWallet);
+        if (!isBuy && availableSC < 0.01) return false;
 
-        double actualTradePercentage = MIN_PERCENTAGE + (MAX_PERCENTAGE - MIN_PERCENTAGE) * r.nextDouble();
+        // 3. Berechnung des Handelsbetrags
+        double currentPrice = priceSimulator.getCurrentPrice();
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        boolean limitOrder = r.nextDouble() < LIMIT_ORDER_SHARE;
+        // Limit-Orders etwas unter (Kauf) bzw. über (Verkauf) dem Preis; Market-Käufe hinterlegen bis zum Preisschutz
+        double orderPrice = limitOrder
+                ? currentPrice * (isBuy ? 1 - r.nextDouble() * MAX_LIMIT_OFFSET : 1 + r.nextDouble() * MAX_LIMIT_OFFSET)
+                : currentPrice * (isBuy ? 1 + Exchange.MAX_SLIPPAGE : 1);
 
         double usdToTrade;
 
         if (isBuy) {
             usdToTrade = tradingWallet.getUsdBalance() * actualTradePercentage;
         } else {
-            usdToTrade = (tradingWallet.getBalance() * actualTradePercentage) * currentPrice;
+            usdToTrade = (availableSC * actualTradePercentage) * orderPrice;
         }
 
         usdToTrade = Math.max(1.0, usdToTrade);
         usdToTrade = Math.min(usdToTrade, 10000000000.0);
 
-        double tradeAmountSC = Math.round((usdToTrade / currentPrice) * 1000.0) / 1000.0;
-        double usdValue = tradeAmountSC * currentPrice;
+        double tradeAmountSC = Math.floor((usdToTrade / orderPrice) * 1000.0) / 1000.0;
+        double usdValue = tradeAmountSC * orderPrice;
 
         if (usdValue < 1.0 || tradeAmountSC < 0.001) {
             return false;
         }
 
-        List<Transaction> txs = new ArrayList<>();
-
-        // 4. Ausführung der Transaktion
-        if (isBuy) {
-            if (tradingWallet.getUsdBalance() < usdValue || supplyWallet.getBalance() < tradeAmountSC + 0.01) {
-                return false;
-            }
+        // 4. Order ins Buch (Deckung wird dort reserviert), danach die Ausführungen signieren
+        Exchange.Result result = limitOrder
+                ? exchange.placeLimit(tradingWallet, isBuy, tradeAmountSC, orderPrice)
+                : exchange.placeMarket(tradingWallet, isBuy, tradeAmountSC);
+        if (!result.accepted()) return false;
 
+        for (Exchange.Settlement settlement : result.settlements()) {
             try {
-                tradingWallet.debitUsd(usdValue);
-                txs.add(supplyWallet.createTransaction(tradingWallet.getAddress(), tradeAmountSC, "SIMULIERT: SC Kauf von Supply"));
-
-                priceSimulator.executeTrade(tradeAmountSC, true);
-
-                System.out.printf("SIMULIERT KAUF: %s... kaufte %.3f SC für %.2f USD (%.0f%%) | Neuer Preis: %.4f%n",
-                        tradingWallet.getAddress().substring(0, 10), tradeAmountSC, usdValue, actualTradePercentage * 100, priceSimulator.getCurrentPrice());
-
-            } catch (Exception ignored) { return false; }
-
-
-        } else {
-            if (tradingWallet.getBalance() < tradeAmountSC + 0.01) {
-                return false;
+                blockAssembler.submitReserved(settlement.seller().createTransaction(
+                        settlement.recipient(), settlement.amount(), settlement.message()));
+            } catch (Exception e) {
+                mempool.cancelReservation(settlement.seller().getAddress(), settlement.amount());
+                System.err.println("Ausführung konnte nicht signiert werden: " + e.getMessage());
             }
+        }
 
-            try {
-                tradingWallet.creditUsd(usdValue);
-                txs.add(tradingWallet.createTransaction(MyChainGUI.EXCHANGE_ADDRESS, tradeAmountSC, "SIMULIERT: SC Verkauf an Exchange"));
-
-                priceSimulator.executeTrade(tradeAmountSC, false);
-
-                System.out.printf("SIMULIERT VERKAUF: %s... verkaufte %.3f SC für %.2f USD (%.0f%%) | Neuer Preis: %.4f%n",
-                        tradingWallet.getAddress().substring(0, 10), tradeAmountSC, usdValue, actualTradePercentage * 100, priceSimulator.getCurrentPrice());
+        if (verbose) System.out.printf("SIMULIERT %s: %s... %s %.3f/%.3f SC (%.0f%%), Ø %.4f USD%s | Neuer Preis: %.4f%n",
+                isBuy ? "KAUF" : "VERKAUF", tradingWallet.getAddress().substring(0, 10),
+                limitOrder ? "Limit " + String.format("%.4f", orderPrice) : "Market",
+                result.filled(), tradeAmountSC, actualTradePercentage * 100, result.averagePrice(),
+                result.resting() ? " | Rest im Buch" : "", priceSimulator.getCurrentPrice());
 
-            } catch (Exception ignored) { return false; }
-        }
+        // 5. Die Transaktionen liegen im Mempool – Mining und Speicherung übernimmt der BlockAssembler
+        return result.filled() > 0 || result.resting();
+    }
 
-        // 5. Mining und Speicherung
-        if (!txs.isEmpty()) {
-            blockchain.addBlock(txs);
+    // Wird vom BlockAssembler nach jedem neuen Block aufgerufen
+    private void onBlockAdded(Block block) {
+        // Inkrementeller Ledger: nur der neue Block wird auf die Balancen angewendet
+        WalletManager.applyLatestBlock(blockchain);
 
-            // 🛑 PRÜFUNG: Blockchain Reset
-            checkAndResetChain();
+        // 🌟 NEU: Log und kritische Wallets schreibt der PersistenceWriter im Hintergrund (Group Commit)
+        PersistenceWriter.blockAdded(blockchain);
 
-            // Speichern und Wallets neu berechnen
-            BlockchainPersistence.saveBlockchain(blockchain);
-            WalletManager.recalculateAllBalances();
-            WalletManager.saveWallets(); // Speichert nur kritische Wallets
+        // 🌟 NEU: Snapshot/Kürzen statt Reset
+        checkSnapshot();
 
-            return true;
-        }
-        return false;
+        listener.onBlockAdded(block);
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package org.fintech;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+/**
+ * Allokationsfreier Mining-Pfad für einen Block.
+ *
+ * Der Hash-Input ist previousHash + timeStamp + nonce + txData. Präfix und Suffix werden
+ * genau einmal in einen wiederverwendeten Puffer kodiert; pro Versuch werden nur die
+ * Nonce-Ziffern an Ort und Stelle überschrieben. Die Schwierigkeit wird direkt auf den
+ * führenden Null-Bits des Roh-Hashes geprüft – Hex wird erst für den Treffer erzeugt.
+ *
+ * Gehasht wird mit dem JDK-MessageDigest, weil dessen SHA-256 intrinsisch (SHA-NI/AVX2)
+ * läuft und damit deutlich schneller ist als ein eigener Midstate in reinem Java.
+ */
+final class NonceHasher {
+
+    private static final int MAX_NONCE_DIGITS = 10;
+
+    private final MessageDigest digest;
+    private final byte[] input;
+    private final int prefixLength;
+    private final byte[] suffix;
+    private final byte[] hash = new byte[32];
+    private int digitCount = -1;
+    private int inputLength;
+
+    NonceHasher(String previousHash, long timeStamp, String txData) {
+        byte[] prefix = (previousHash + timeStamp).getBytes(StandardCharsets.UTF_8);
+        this.suffix = txData.getBytes(StandardCharsets.UTF_8);
+        this.prefixLength = prefix.length;
+        this.input = new byte[prefix.length + MAX_NONCE_DIGITS + suffix.length];
+        System.arraycopy(prefix, 0, input, 0, prefix.length);
+        // Thread-lokaler Digest: jeder Hasher wird nur von dem Thread benutzt, der ihn erzeugt
+        this.digest = StringUtil.sha256Digest();
+    }
+
+    /**
+     * Hasht den Kandidaten und prüft, ob der Hash mindestens {@code zeroBits} führende Null-Bits hat.
+     * Nonces sind nicht negativ (0 … Integer.MAX_VALUE).
+     */
+    boolean tryNonce(int nonce, int zeroBits) {
+        int digits = countDigits(nonce);
+        if (digits != digitCount) {
+            // Nur wenn sich die Stellenzahl ändert, verschiebt sich der Suffix
+            System.arraycopy(suffix, 0, input, prefixLength + digits, suffix.length);
+            digitCount = digits;
+            inputLength = prefixLength + digits + suffix.length;
+        }
+
+        int pos = prefixLength + digits;
+        int n = nonce;
+        do {
+            input[--pos] = (byte) ('0' + (n % 10));
+            n /= 10;
+        } while (n != 0);
+
+        try {
+            digest.update(input, 0, inputLength);
+            digest.digest(hash, 0, hash.length);
+        } catch (DigestException e) {
+            throw new RuntimeException(e);
+        }
+        return leadingZeroBits(hash) >= zeroBits;
+    }
+
+    /** Hex-Darstellung des zuletzt berechneten Hashes (nur für den Treffer aufrufen). */
+    String hexHash() {
+        return StringUtil.toHex(hash);
+    }
+
+    // Ein Hex-Zeichen "0" entspricht 4 Null-Bits
+    static int zeroBitsForDifficulty(int difficulty) {
+        return difficulty * 4;
+    }
+
+    static int leadingZeroBits(byte[] hash) {
+        int bits = 0;
+        for (byte b : hash) {
+            if (b != 0) {
+                return bits + Integer.numberOfLeadingZeros(b & 0xFF) - 24;
+            }
+            bits += 8;
+        }
+        return bits;
+    }
+
+    private static int countDigits(int n) {
+        int digits = 1;
+        while (n >= 10) {
+            n /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
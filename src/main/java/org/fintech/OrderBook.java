@@ -0,0 +1,337 @@
+package org.fintech;
+
+import java.util.Arrays;
+
+/**
+ * Orderbuch mit Preis-Zeit-Priorität: Limit-Orders, Market-Orders (nicht ausgeführter Rest verfällt)
+ * und Teilausführungen.
+ *
+ * Preise sind ganzzahlige Ticks, Mengen ganzzahlige Lots – die Umrechnung macht der Aufrufer
+ * (siehe {@link Exchange}). Alles liegt in primitiven Arrays: Preisstufen pro Seite als sortiertes
+ * long-Array (beste Stufe am Ende, Einfügen nahe dem besten Preis kostet kaum Verschiebung), die Orders
+ * als wiederverwendete Slots, pro Stufe zu einer FIFO-Liste verkettet. Pro Order wird nichts allokiert.
+ *
+ * Nicht thread-sicher – der Aufrufer serialisiert. Ergebnisse meldet der {@link Listener} synchron.
+ */
+public class OrderBook {
+
+    /** Ausführungen und verfallene/stornierte Orders; wird während des Matchings aufgerufen und darf das Buch nicht ändern. */
+    public interface Listener {
+        void onFill(long makerOrderId, int makerOwner, long takerOrderId, int takerOwner,
+                    boolean takerBuy, long price, long quantity);
+
+        /** Ruhende Order storniert oder nicht ausgeführter Rest einer sofortigen Order verfallen. */
+        default void onCancel(long orderId, int owner, boolean buy, long price, long remaining) {}
+    }
+
+    private static final int NONE = -1;
+
+    private final Listener listener;
+    private final Side bids = new Side(true);
+    private final Side asks = new Side(false);
+
+    // Order-Slots (parallele Arrays); Order-ID = Generation << 32 | Slot
+    private long[] slotPrice = new long[1024];
+    private long[] slotQuantity = new long[1024];
+    private int[] slotOwner = new int[1024];
+    private int[] slotGeneration = new int[1024];
+    private int[] slotNext = new int[1024];
+    private int[] slotPrev = new int[1024];
+    private boolean[] slotBuy = new boolean[1024];
+    private boolean[] slotResting = new boolean[1024];
+    private int slotsUsed = 0;
+    private int freeSlot = NONE;
+
+    private long lastTradePrice;
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+    private long orderCount;
+    private long fillCount;
+    private long cancelCount;
+
+    public OrderBook(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Limit-Order: führt aus, was sich kreuzt, der Rest ruht im Buch. */
+    public long submitLimit(int owner, boolean buy, long price, long quantity) {
+        return submit(owner, buy, price, quantity, false);
+    }
+
+    /** Sofortige Limit-Order (IOC): führt bis zum Limit aus, der Rest verfällt. */
+    public long submitImmediate(int owner, boolean buy, long limitPrice, long quantity) {
+        return submit(owner, buy, limitPrice, quantity, true);
+    }
+
+    /** Market-Order: nimmt jeden Preis, der Rest verfällt, wenn die Gegenseite leer ist. */
+    public long submitMarket(int owner, boolean buy, long quantity) {
+        return submit(owner, buy, buy ? Long.MAX_VALUE : 0, quantity, true);
+    }
+
+    /** Storniert eine ruhende Order. @return false, wenn sie schon ausgeführt oder storniert ist */
+    public boolean cancel(long orderId) {
+        int slot = slotOf(orderId);
+        if (slot == NONE) return false;
+        Side side = slotBuy[slot] ? bids : asks;
+        long remaining = slotQuantity[slot];
+        side.unlink(slot);
+        cancelCount++;
+        listener.onCancel(orderId, slotOwner[slot], slotBuy[slot], slotPrice[slot], remaining);
+        release(slot);
+        return true;
+    }
+
+    /** Noch offene Menge einer ruhenden Order (0, wenn ausgeführt oder storniert). */
+    public long remaining(long orderId) {
+        int slot = slotOf(orderId);
+        return slot == NONE ? 0 : slotQuantity[slot];
+    }
+
+    private long submit(int owner, boolean buy, long price, long quantity, boolean immediate) {
+        if (quantity <= 0) throw new IllegalArgumentException("Menge muss positiv sein: " + quantity);
+        long start = System.nanoTime();
+        orderCount++;
+
+        int slot = allocate();
+        long orderId = idOf(slot);
+        long remaining = match(orderId, owner, buy, price, quantity);
+
+        if (remaining > 0 && !immediate) {
+            slotPrice[slot] = price;
+            slotQuantity[slot] = remaining;
+            slotOwner[slot] = owner;
+            slotBuy[slot] = buy;
+            (buy ? bids : asks).append(slot);
+        } else {
+            if (remaining > 0) {
+                cancelCount++;
+                listener.onCancel(orderId, owner, buy, price, remaining);
+            }
+            release(slot);
+        }
+        matchLatency.record(System.nanoTime() - start);
+        return orderId;
+    }
+
+    // Nimmt Liquidität von der Gegenseite, solange der Preis passt; gibt die Restmenge zurück
+    private long match(long takerId, int takerOwner, boolean buy, long limit, long quantity) {
+        Side opposite = buy ? asks : bids;
+        while (quantity > 0 && opposite.size > 0) {
+            int level = opposite.size - 1;
+            long levelPrice = opposite.priceAt(level);
+            if (buy ? levelPrice > limit : levelPrice < limit) break;
+
+            int maker = opposite.heads[level];
+            while (maker != NONE && quantity > 0) {
+                int next = slotNext[maker];
+                long makerId = idOf(maker);
+                if (slotOwner[maker] == takerOwner) {
+                    // Kein Handel mit sich selbst: die ältere, ruhende Order wird storniert
+                    long rest = slotQuantity[maker];
+                    opposite.unlink(maker);
+                    cancelCount++;
+                    listener.onCancel(makerId, slotOwner[maker], !buy, levelPrice, rest);
+                    release(maker);
+                } else {
+                    long traded = Math.min(quantity, slotQuantity[maker]);
+                    quantity -= traded;
+                    slotQuantity[maker] -= traded;
+                    opposite.volumes[level] -= traded;
+                    lastTradePrice = levelPrice;
+                    fillCount++;
+                    int makerOwner = slotOwner[maker];
+                    if (slotQuantity[maker] == 0) {
+                        opposite.unlink(maker);
+                        release(maker);
+                    }
+                    listener.onFill(makerId, makerOwner, takerId, takerOwner, buy, levelPrice, traded);
+                }
+                maker = next;
+            }
+        }
+        return quantity;
+    }
+
+    // --- SLOTS ---
+
+    private int allocate() {
+        int slot;
+        if (freeSlot != NONE) {
+            slot = freeSlot;
+            freeSlot = slotNext[slot];
+        } else {
+            if (slotsUsed == slotPrice.length) grow();
+            slot = slotsUsed++;
+        }
+        slotGeneration[slot]++;
+        slotNext[slot] = NONE;
+        slotPrev[slot] = NONE;
+        return slot;
+    }
+
+    private void release(int slot) {
+        slotResting[slot] = false;
+        slotQuantity[slot] = 0;
+        slotNext[slot] = freeSlot;
+        freeSlot = slot;
+    }
+
+    private void grow() {
+        int capacity = slotPrice.length * 2;
+        slotPrice = Arrays.copyOf(slotPrice, capacity);
+        slotQuantity = Arrays.copyOf(slotQuantity, capacity);
+        slotOwner = Arrays.copyOf(slotOwner, capacity);
+        slotGeneration = Arrays.copyOf(slotGeneration, capacity);
+        slotNext = Arrays.copyOf(slotNext, capacity);
+        slotPrev = Arrays.copyOf(slotPrev, capacity);
+        slotBuy = Arrays.copyOf(slotBuy, capacity);
+        slotResting = Arrays.copyOf(slotResting, capacity);
+    }
+
+    private long idOf(int slot) {
+        return ((long) slotGeneration[slot] << 32) | slot;
+    }
+
+    // Slot einer ruhenden Order oder NONE (veraltete Generation = Order existiert nicht mehr)
+    private int slotOf(long orderId) {
+        int slot = (int) orderId;
+        if (slot < 0 || slot >= slotsUsed) return NONE;
+        if (slotGeneration[slot] != (int) (orderId >>> 32) || !slotResting[slot]) return NONE;
+        return slot;
+    }
+
+    // --- PREISSTUFEN ---
+
+    /**
+     * Eine Seite des Buchs. Stufen aufsteigend nach Schlüssel sortiert (Gebote: Preis, Angebote: -Preis),
+     * die beste Stufe liegt damit immer am Ende.
+     */
+    private final class Side {
+        final boolean buy;
+        long[] keys = new long[64];
+        long[] volumes = new long[64];
+        int[] heads = new int[64];
+        int[] tails = new int[64];
+        int size;
+
+        Side(boolean buy) {
+            this.buy = buy;
+        }
+
+        long priceAt(int level) {
+            return buy ? keys[level] : -keys[level];
+        }
+
+        void append(int slot) {
+            long key = buy ? slotPrice[slot] : -slotPrice[slot];
+            int level = findFromBest(key);
+            if (level < 0) {
+                level = -level - 1;
+                insertLevel(level, key);
+            }
+            int tail = tails[level];
+            slotPrev[slot] = tail;
+            slotNext[slot] = NONE;
+            if (tail == NONE) heads[level] = slot;
+            else slotNext[tail] = slot;
+            tails[level] = slot;
+            volumes[level] += slotQuantity[slot];
+            slotResting[slot] = true;
+        }
+
+        void unlink(int slot) {
+            int level = findFromBest(buy ? slotPrice[slot] : -slotPrice[slot]);
+            int prev = slotPrev[slot];
+            int next = slotNext[slot];
+            if (prev == NONE) heads[level] = next;
+            else slotNext[prev] = next;
+            if (next == NONE) tails[level] = prev;
+            else slotPrev[next] = prev;
+            volumes[level] -= slotQuantity[slot];
+            slotResting[slot] = false;
+            if (heads[level] == NONE) removeLevel(level);
+        }
+
+        // Die meisten Zugriffe treffen die besten Stufen: erst vom Ende her prüfen, sonst binär suchen
+        int findFromBest(long key) {
+            for (int i = size - 1; i >= 0 && i >= size - 4; i--) {
+                if (keys[i] == key) return i;
+                if (keys[i] < key) return -(i + 1) - 1;
+            }
+            return Arrays.binarySearch(keys, 0, size, key);
+        }
+
+        void insertLevel(int level, long key) {
+            if (size == keys.length) {
+                int capacity = size * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+                heads = Arrays.copyOf(heads, capacity);
+                tails = Arrays.copyOf(tails, capacity);
+            }
+            int moved = size - level;
+            System.arraycopy(keys, level, keys, level + 1, moved);
+            System.arraycopy(volumes, level, volumes, level + 1, moved);
+            System.arraycopy(heads, level, heads, level + 1, moved);
+            System.arraycopy(tails, level, tails, level + 1, moved);
+            keys[level] = key;
+            volumes[level] = 0;
+            heads[level] = NONE;
+            tails[level] = NONE;
+            size++;
+        }
+
+        void removeLevel(int level) {
+            int moved = size - level - 1;
+            System.arraycopy(keys, level + 1, keys, level, moved);
+            System.arraycopy(volumes, level + 1, volumes, level, moved);
+            System.arraycopy(heads, level + 1, heads, level, moved);
+            System.arraycopy(tails, level + 1, tails, level, moved);
+            size--;
+        }
+    }
+
+    // --- ABFRAGEN ---
+
+    /** Bestes Gebot in Ticks, 0 wenn keine Gebote im Buch. */
+    public long getBestBid() {
+        return bids.size == 0 ? 0 : bids.priceAt(bids.size - 1);
+    }
+
+    /** Bestes Angebot in Ticks, 0 wenn keine Angebote im Buch. */
+    public long getBestAsk() {
+        return asks.size == 0 ? 0 : asks.priceAt(asks.size - 1);
+    }
+
+    /** Offene Menge auf einer Preisstufe in Lots. */
+    public long getVolumeAt(boolean buy, long price) {
+        Side side = buy ? bids : asks;
+        int level = side.findFromBest(buy ? price : -price);
+        return level < 0 ? 0 : side.volumes[level];
+    }
+
+    public int getLevelCount(boolean buy) {
+        return (buy ? bids : asks).size;
+    }
+
+    /** Preis der letzten Ausführung in Ticks (0 = noch kein Handel). */
+    public long getLastTradePrice() {
+        return lastTradePrice;
+    }
+
+    /** Dauer pro eingereichter Order inklusive Matching. */
+    public LatencyHistogram getMatchLatency() {
+        return matchLatency;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getFillCount() {
+        return fillCount;
+    }
+
+    public long getCancelCount() {
+        return cancelCount;
+    }
+}
@@ -0,0 +1,153 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Proof-of-Work auf allen Kernen: der Nonce-Raum wird verschachtelt auf die Worker verteilt
+ * (Worker w prüft w, w+k, w+2k, ...). Der erste Treffer beendet alle anderen Worker.
+ * Gehasht wird über {@link NonceHasher} (wiederverwendeter Byte-Puffer + Null-Bit-Prüfung, ohne Strings).
+ * Ist der int-Nonce-Raum erschöpft, wird der Zeitstempel um 1 ms weitergedreht.
+ */
+public class ParallelMiner {
+
+    // Unterhalb dieser Schwierigkeit ist der Thread-Overhead größer als die eigentliche Suche
+    static final int MIN_PARALLEL_DIFFICULTY = 3;
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private static int threads = Runtime.getRuntime().availableProcessors();
+    private static ForkJoinPool pool = new ForkJoinPool(threads);
+
+    // Statistik (auch der sequenzielle Pfad in Block.mineBlock meldet hier)
+    private static final LongAdder totalHashes = new LongAdder();
+    private static final LongAdder totalNanos = new LongAdder();
+    private static volatile double lastHashRate = 0.0;
+    // 🌟 NEU: Export über die Metrik-Registry
+    private static final LatencyHistogram MINING_TIME = Metrics.histogram("mychain_mining_seconds", "Dauer der Nonce-Suche pro Block");
+    private static final Metrics.Counter MINED_HASHES = Metrics.counter("mychain_mining_hashes", "Berechnete Hashes");
+
+    static {
+        Metrics.gauge("mychain_mining_hash_rate", "Hashes/s des zuletzt geminten Blocks", ParallelMiner::getLastHashRate);
+        Metrics.gauge("mychain_mining_hash_rate_average", "Hashes/s über alle geminten Blöcke", ParallelMiner::getAverageHashRate);
+    }
+
+    public record Result(long timeStamp, int nonce, String hash) {}
+
+    public static synchronized void setThreads(int count) {
+        int newCount = Math.max(1, count);
+        if (newCount == threads) return;
+        pool.shutdown();
+        threads = newCount;
+        pool = new ForkJoinPool(newCount);
+    }
+
+    public static synchronized int getThreads() {
+        return threads;
+    }
+
+    public static Result mine(Block block, int difficulty) {
+        ForkJoinPool miningPool;
+        int workers;
+        synchronized (ParallelMiner.class) {
+            miningPool = pool;
+            workers = threads;
+        }
+
+        int zeroBits = NonceHasher.zeroBitsForDifficulty(difficulty);
+        String txData = block.getTxData();
+        AtomicReference<Result> found = new AtomicReference<>();
+        LongAdder attempts = new LongAdder();
+        long start = System.nanoTime();
+
+        for (long timeStamp = block.getTimeStamp(); found.get() == null; timeStamp++) {
+            final long roundTimeStamp = timeStamp;
+            List<Callable<Void>> tasks = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                final int offset = w;
+                tasks.add(() -> {
+                    search(block, txData, zeroBits, roundTimeStamp, offset, workers, found, attempts);
+                    return null;
+                });
+            }
+            miningPool.invokeAll(tasks);
+        }
+
+        recordRun(attempts.sum(), System.nanoTime() - start);
+        return found.get();
+    }
+
+    private static void search(Block block, String txData, int zeroBits, long timeStamp,
+                               int offset, int stride, AtomicReference<Result> found, LongAdder attempts) {
+        // Jeder Worker hat seinen eigenen Puffer und Digest – der Hot-Loop allokiert nichts
+        NonceHasher hasher = new NonceHasher(block.getPreviousHash(), timeStamp, txData);
+        long local = 0;
+        for (long candidate = offset; candidate <= Integer.MAX_VALUE; candidate += stride) {
+            if ((local % CANCEL_CHECK_INTERVAL) == 0 && found.get() != null) break;
+
+            local++;
+            if (hasher.tryNonce((int) candidate, zeroBits)) {
+                found.compareAndSet(null, new Result(timeStamp, (int) candidate, hasher.hexHash()));
+                break;
+            }
+        }
+        attempts.add(local);
+    }
+
+    // --- STATISTIK ---
+
+    static void recordRun(long hashes, long nanos) {
+        totalHashes.add(hashes);
+        totalNanos.add(nanos);
+        MINED_HASHES.add(hashes);
+        MINING_TIME.record(nanos);
+        if (nanos > 0) {
+            lastHashRate = hashes * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /** Hashes/s des zuletzt geminten Blocks. */
+    public static double getLastHashRate() {
+        return lastHashRate;
+    }
+
+    /** Durchschnittliche Hashes/s über alle geminten Blöcke. */
+    public static double getAverageHashRate() {
+        long nanos = totalNanos.sum();
+        return nanos == 0 ? 0.0 : totalHashes.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    public static long getTotalHashes() {
+        return totalHashes.sum();
+    }
+
+    /**
+     * Skalierungsmessung: mined einige Blöcke mit 1, 2, 4, ... Threads und gibt die Hashrate aus.
+     * Aufruf: ParallelMiner [difficulty] [blöcke]
+     */
+    public static void main(String[] args) {
+        int difficulty = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int blocks = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Mining-Skalierung: Difficulty %d, %d Blöcke, %d Kerne%n", difficulty, blocks, cores);
+        for (int t = 1; t <= cores; t = (t == cores) ? cores + 1 : Math.min(t * 2, cores)) {
+            setThreads(t);
+            long hashes = 0;
+            long nanos = 0;
+            for (int i = 0; i < blocks; i++) {
+                Block block = new Block(List.of(new Transaction("system", "benchmark", 1.0, "Block " + i)), "0");
+                long before = getTotalHashes();
+                long start = System.nanoTime();
+                mine(block, difficulty);
+                nanos += System.nanoTime() - start;
+                hashes += getTotalHashes() - before;
+            }
+            System.out.printf("  %2d Threads: %,12.0f Hashes/s%n", t, hashes * 1_000_000_000.0 / nanos);
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,273 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write-behind für den Zustand auf der Platte: Block-Assembler und Wallet-Erzeugung melden nur,
+ * dass etwas schmutzig ist, geschrieben wird auf einem eigenen Thread.
+ *
+ * Meldungen, die während eines Schreibvorgangs eintreffen, werden zu einem Commit zusammengefasst
+ * (Group Commit): alle bis dahin angehängten Blöcke und die Wallet-Datei werden geschrieben und danach
+ * einmal per fsync gesichert. Wie oft das passiert, bestimmt der {@link Durability}-Modus.
+ *
+ * Daneben übernimmt der Thread Plattenarbeit, die sonst auf dem Handels- bzw. Block-Pfad liefe:
+ * {@link #execute} sofort (z.B. das nächste Tick-Segment anlegen), {@link #afterCommit} mit dem nächsten
+ * Commit (z.B. Snapshots – sie folgen damit ebenfalls dem Durability-Modus).
+ */
+public final class PersistenceWriter {
+
+    /** Wann ein Commit ausgelöst wird. */
+    public enum Durability {
+        /** Sobald etwas schmutzig ist (ein Commit pro Block, solange die Platte hinterherkommt). */
+        EVERY_BLOCK,
+        /** Höchstens alle {@link #getIntervalMillis()} ms. */
+        INTERVAL,
+        /** Nur bei {@link #flush()} bzw. {@link #shutdown()}. */
+        ON_SHUTDOWN
+    }
+
+    private static final Object lock = new Object();
+
+    // --- durch lock geschützt ---
+    private static Durability durability = Durability.EVERY_BLOCK;
+    private static long intervalMillis = 1000;
+    private static Blockchain dirtyChain;
+    private static boolean walletsDirty;
+    private static long dirtySinceMillis;
+    // Fortlaufende Nummern: gemeldet, angefordert (flush) und geschrieben
+    private static long requested;
+    private static long flushTarget;
+    private static long committed;
+    private static final List<Runnable> tasks = new ArrayList<>();
+    private static final List<Runnable> commitTasks = new ArrayList<>();
+    private static Thread thread;
+    private static boolean running;
+
+    private static final LatencyHistogram COMMIT_TIME = Metrics.histogram("mychain_persistence_commit_seconds", "Dauer eines Group Commits (Schreiben + fsync)");
+    private static final Metrics.Counter COMMITS = Metrics.counter("mychain_persistence_commits", "Group Commits");
+    private static final Metrics.Counter NOTIFICATIONS = Metrics.counter("mychain_persistence_notifications", "Gemeldete Änderungen (zusammengefasst in Commits)");
+
+    static {
+        Metrics.gauge("mychain_persistence_pending", "Gemeldete, noch nicht geschriebene Änderungen", PersistenceWriter::getPending);
+        Runtime.getRuntime().addShutdownHook(new Thread(PersistenceWriter::shutdown, "persistence-shutdown"));
+    }
+
+    private PersistenceWriter() {}
+
+    // --- KONFIGURATION ---
+
+    public static void setDurability(Durability mode, long interval) {
+        synchronized (lock) {
+            durability = mode;
+            intervalMillis = Math.max(1, interval);
+            lock.notifyAll();
+        }
+    }
+
+    public static Durability getDurability() {
+        synchronized (lock) {
+            return durability;
+        }
+    }
+
+    public static long getIntervalMillis() {
+        synchronized (lock) {
+            return intervalMillis;
+        }
+    }
+
+    // --- MELDUNGEN (kehren sofort zurück) ---
+
+    /** Neue Blöcke in der Kette; die Balancen der kritischen Wallets haben sich damit ebenfalls geändert. */
+    public static void blockAdded(Blockchain chain) {
+        markDirty(chain, true);
+    }
+
+    /** Nur die Wallet-Datei ist schmutzig (z.B. neue Wallet). */
+    public static void walletsChanged() {
+        markDirty(null, true);
+    }
+
+    private static void markDirty(Blockchain chain, boolean wallets) {
+        NOTIFICATIONS.increment();
+        synchronized (lock) {
+            if (!hasChanges()) dirtySinceMillis = System.currentTimeMillis();
+            if (chain != null) dirtyChain = chain;
+            walletsDirty |= wallets;
+            requested++;
+            startIfNeeded();
+            lock.notifyAll();
+        }
+    }
+
+    /** Führt task bald auf dem Schreib-Thread aus, unabhängig vom Durability-Modus. */
+    public static void execute(Runnable task) {
+        synchronized (lock) {
+            tasks.add(task);
+            startIfNeeded();
+            lock.notifyAll();
+        }
+    }
+
+    /** Führt task beim nächsten Commit aus, nach dem Schreiben und vor dem fsync; zählt als Änderung. */
+    public static void afterCommit(Runnable task) {
+        synchronized (lock) {
+            markDirty(null, false);
+            commitTasks.add(task);
+        }
+    }
+
+    // --- SYNCHRONISATION ---
+
+    /** Wartet, bis alle bisher gemeldeten Änderungen geschrieben und gesichert sind. */
+    public static void flush() {
+        synchronized (lock) {
+            if (committed >= requested) return;
+            flushTarget = Math.max(flushTarget, requested);
+            long target = requested;
+            lock.notifyAll();
+            while (committed < target && thread != null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Schreibt alles Ausstehende und beendet den Schreib-Thread (ein späteres Melden startet ihn neu). */
+    public static void shutdown() {
+        Thread writer;
+        synchronized (lock) {
+            if (thread == null) return;
+            writer = thread;
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static long getPending() {
+        synchronized (lock) {
+            return requested - committed;
+        }
+    }
+
+    public static String statsSummary() {
+        return String.format("Persistenz (%s): %d Meldungen in %d Commits, Commit %s",
+                getDurability(), NOTIFICATIONS.get(), COMMITS.get(), COMMIT_TIME);
+    }
+
+    // --- SCHREIB-THREAD ---
+
+    private static void startIfNeeded() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(PersistenceWriter::writeLoop, "persistence-writer");
+        // Daemon: das Beenden sichert der Shutdown-Hook bzw. ein expliziter shutdown()
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void writeLoop() {
+        while (true) {
+            List<Runnable> jobs;
+            Blockchain chain = null;
+            boolean wallets = false;
+            List<Runnable> afterWrite = List.of();
+            long target = -1;
+            synchronized (lock) {
+                while (running && !isDue() && tasks.isEmpty()) {
+                    try {
+                        lock.wait(waitMillis());
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                jobs = new ArrayList<>(tasks);
+                tasks.clear();
+                if (hasChanges() && (isDue() || !running)) {
+                    chain = dirtyChain;
+                    wallets = walletsDirty;
+                    dirtyChain = null;
+                    walletsDirty = false;
+                    afterWrite = new ArrayList<>(commitTasks);
+                    commitTasks.clear();
+                    target = requested;
+                } else if (!running && jobs.isEmpty()) {
+                    // Nur beim Beenden erreichbar: nichts mehr zu schreiben
+                    committed = requested;
+                    thread = null;
+                    lock.notifyAll();
+                    return;
+                }
+            }
+
+            jobs.forEach(PersistenceWriter::run);
+            if (target < 0) continue;
+
+            commit(chain, wallets, afterWrite);
+
+            synchronized (lock) {
+                committed = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Aufruf nur unter lock
+    private static boolean hasChanges() {
+        return dirtyChain != null || walletsDirty || !commitTasks.isEmpty();
+    }
+
+    // Aufruf nur unter lock
+    private static boolean isDue() {
+        if (!hasChanges()) return false;
+        if (flushTarget > committed) return true;
+        return switch (durability) {
+            case EVERY_BLOCK -> true;
+            case INTERVAL -> System.currentTimeMillis() - dirtySinceMillis >= intervalMillis;
+            case ON_SHUTDOWN -> false;
+        };
+    }
+
+    // Aufruf nur unter lock; 0 = bis zur nächsten Meldung
+    private static long waitMillis() {
+        if (durability != Durability.INTERVAL || !hasChanges()) return 0;
+        return Math.max(1, dirtySinceMillis + intervalMillis - System.currentTimeMillis());
+    }
+
+    private static void commit(Blockchain chain, boolean wallets, List<Runnable> afterWrite) {
+        long start = System.nanoTime();
+        try {
+            // Alle seit dem letzten Commit angehängten Blöcke auf einmal, danach ein fsync für alle Dateien
+            if (chain != null) BlockchainPersistence.saveBlockchain(chain);
+            if (wallets) WalletManager.saveWallets();
+            afterWrite.forEach(PersistenceWriter::run);
+            BlockchainPersistence.sync();
+            // Nicht öffnen: wer nie Ticks geschrieben hat, soll kein price-log/ anlegen
+            TickStore tickStore = PriceSimulator.getOpenTickStore();
+            if (tickStore != null) tickStore.sync();
+        } catch (RuntimeException e) {
+            System.err.println("Fehler beim Schreiben im Hintergrund: " + e.getMessage());
+        }
+        COMMITS.increment();
+        COMMIT_TIME.record(System.nanoTime() - start);
+    }
+
+    // Ein fehlschlagender Auftrag darf den Schreib-Thread nicht beenden
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            System.err.println("Fehler im Hintergrund-Auftrag: " + e.getMessage());
+        }
+    }
+}
@@ -6,27 +6,83 @@ public class PriceSimulator {
 
     private double currentPrice;
     private final Random random = new Random();
+    // Nur noch zur Übernahme eines alten Preises; die Historie liegt im TickStore
     private static final String PRICE_FILE = "price.txt";
+    private static final String TICK_DIR = "price-log";
+    // Beim Start werden die Kerzen aus der letzten Stunde der Tick-Datei wieder aufgebaut
+    private static final long WARMUP_MILLIS = 3_600_000L;
+    private static TickStore store;
+    // 🌟 NEU: Verlauf aller Preisänderungen samt Kerzen
+    private final TickRecorder ticks = new TickRecorder();
 
     public PriceSimulator(double initialPrice) {
         this.currentPrice = initialPrice;
+        long now = System.currentTimeMillis();
+        TickStore tickStore = getTickStore();
+        if (tickStore != null) {
+            try {
+                tickStore.query(now - WARMUP_MILLIS, Long.MAX_VALUE, (time, price, volume, side) -> ticks.record(time, price, volume));
+            } catch (java.io.IOException e) {
+                System.err.println("Fehler beim Lesen der Preis-Historie: " + e.getMessage());
+            }
+        }
+        if (ticks.getTotalTicks() == 0) ticks.record(now, initialPrice, 0.0);
+    }
+
+    /** Append-only Tick-Datei (price-log/), beim ersten Zugriff geöffnet; null, wenn sie nicht nutzbar ist. */
+    public static synchronized TickStore getTickStore() {
+        if (store == null) {
+            try {
+                store = TickStore.open(java.nio.file.Paths.get(TICK_DIR));
+                // Nächstes Segment legt der Schreib-Thread an, nicht der Handel unter dem Lock der Börse
+                store.setPreparer(PersistenceWriter::execute);
+            } catch (java.io.IOException | RuntimeException e) {
+                System.err.println("Fehler beim Öffnen der Preis-Historie: " + e.getMessage());
+            }
+        }
+        return store;
+    }
+
+    /** Die Tick-Datei, falls schon geöffnet – öffnet sie nicht (z.B. für den Schreib-Thread). */
+    public static synchronized TickStore getOpenTickStore() {
+        return store;
     }
 
+    /**
+     * Sichert den Preis: Handels-Ticks stehen schon in der Tick-Datei, hier kommt nur ein Abschluss-Tick
+     * dazu, falls der Preis davon abweicht, und die Datei wird auf die Platte geschrieben.
+     */
     public static void savePrice(double price) {
-        try (java.io.FileWriter writer = new java.io.FileWriter(PRICE_FILE)) {
-            writer.write(String.valueOf(price));
+        TickStore tickStore = getTickStore();
+        if (tickStore == null) return;
+        try {
+            if (tickStore.getLastPrice() != price) {
+                tickStore.append(System.currentTimeMillis(), price, 0.0, TickStore.SIDE_NONE);
+            }
+            tickStore.sync();
         } catch (java.io.IOException e) {
             System.err.println("Fehler beim Speichern des Preises: " + e.getMessage());
         }
     }
 
+    /** Letzter Preis aus der Tick-Datei; gibt es keine, wird ein alter price.txt-Stand übernommen. */
     public static double loadPrice(double defaultPrice) {
+        TickStore tickStore = getTickStore();
+        if (tickStore != null && tickStore.size() > 0) {
+            return tickStore.getLastPrice();
+        }
+
         java.io.File file = new java.io.File(PRICE_FILE);
         if (file.exists() && file.length() > 0) {
             try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
                 String line = reader.readLine();
                 if (line != null) {
-                    return Double.parseDouble(line.trim());
+                    double price = Double.parseDouble(line.trim());
+                    if (tickStore != null) {
+                        tickStore.append(file.lastModified(), price, 0.0, TickStore.SIDE_NONE);
+                        System.out.printf("Preis %.4f USD aus %s in die Preis-Historie übernommen.%n", price, PRICE_FILE);
+                    }
+                    return price;
                 }
             } catch (java.io.IOException | NumberFormatException e) {
                 System.err.println("Fehler beim Laden oder Parsen des Preises: " + e.getMessage());
@@ -35,54 +91,31 @@ public class PriceSimulator {
         }
         return defaultPrice;
     }
+
     /**
-     * Simuliert den Einfluss eines Handels (Kauf oder Verkauf) auf den Preis.
-     * @param amount Die gehandelte SC-Menge.
-     * @param isBuy True, wenn SC gekauft wird (erhöht Nachfrage/Preis); False, wenn SC verkauft wird (erhöht Angebot/senkt Preis).
+     * Übernimmt den Preis der letzten Ausführung im Orderbuch ({@link Exchange}), zeichnet ihn
+     * mit dem gehandelten Volumen als Tick auf und hängt ihn an die Tick-Datei an.
+     * Der Preis fällt dabei nicht unter 0.3 USD.
      */
-    public void executeTrade(double amountSC, boolean isBuy) {
-        if (amountSC <= 0) return;
-
-        // Standard-Parameter (können in den Feldern definiert sein)
-        final double VOLATILITY_FACTOR = 0.0000001; // Beispielwert
-        final double MAX_PRICE_CHANGE_PERCENT = 0.70;  // 🛑 50% Limit
-
-        // Berechnen der Preisänderung basierend auf Handelsvolumen
-        double priceChange = amountSC * VOLATILITY_FACTOR * getCurrentPrice();
-
-        if (!isBuy) {
-            priceChange *= -1; // Bei Verkauf wird der Preis gesenkt
-        }
-
-        // ----------------------------------------------------
-        // 🛑 NEUE KONTROLL-LOGIK (50%-Limit)
-        // ----------------------------------------------------
-        double potentialNewPrice = currentPrice + priceChange;
-
-        // Maximale erlaubte Preisänderung (absolut)
-        double maxAllowedDrop = currentPrice * MAX_PRICE_CHANGE_PERCENT;
-
-        // Prüfen, ob die Preisänderung das 50%-Limit überschreitet
-        if (!isBuy && priceChange < 0 && Math.abs(priceChange) > maxAllowedDrop) {
-
-            System.out.printf("🚨 TRADE ABGELEHNT: Verkauf von %.3f SC würde Preis um %.2f%% droppen (Limit 50.00%%).%n",
-                    amountSC, (Math.abs(priceChange) / currentPrice) * 100);
-
-            // Den Trade blockieren, indem die Methode beendet wird, ohne den Preis zu ändern.
-            return;
+    public synchronized void onTrade(double lastTradePrice, double volume, boolean buy) {
+        currentPrice = Math.max(0.3, lastTradePrice);
+        long now = System.currentTimeMillis();
+        ticks.record(now, currentPrice, volume);
+        TickStore tickStore = getTickStore();
+        if (tickStore != null) {
+            try {
+                tickStore.append(now, currentPrice, volume, buy ? TickStore.SIDE_BUY : TickStore.SIDE_SELL);
+            } catch (java.io.IOException e) {
+                System.err.println("Fehler beim Schreiben der Preis-Historie: " + e.getMessage());
+            }
         }
-        // ----------------------------------------------------
-
-        // Preis aktualisieren (nur wenn der Trade nicht abgelehnt wurde)
-        currentPrice = potentialNewPrice;
+    }
 
-        // Sicherstellen, dass der Preis nicht negativ oder extrem niedrig wird
-        if (currentPrice < 0.3) {
-            currentPrice = 0.3;
-        }
+    public TickRecorder getTickRecorder() {
+        return ticks;
     }
 
-    public double getCurrentPrice() {
+    public synchronized double getCurrentPrice() {
         return currentPrice;
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package org.fintech;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batch-Prüfung aller Transaktionssignaturen einer Kette auf allen Kernen.
+ *
+ * Die Blöcke werden einmal sequenziell gelesen, die eigentliche ECDSA-Prüfung – der teure Teil – läuft danach parallel.
+ * Öffentliche Schlüssel kommen über den Adress-Index des WalletManagers; Absender ohne
+ * bekannte Wallet (User-Wallets werden nicht gespeichert) werden separat gezählt, nicht als Fehler.
+ */
+public class SignatureVerifier {
+
+    public record Failure(int blockIndex, String blockHash, String txId, String reason) {}
+
+    public static final class Report {
+        private final int checked;
+        private final int systemTransactions;
+        private final int unresolvedSenders;
+        private final List<Failure> failures;
+        private final long nanos;
+
+        private Report(int checked, int systemTransactions, int unresolvedSenders, List<Failure> failures, long nanos) {
+            this.checked = checked;
+            this.systemTransactions = systemTransactions;
+            this.unresolvedSenders = unresolvedSenders;
+            this.failures = failures;
+            this.nanos = nanos;
+        }
+
+        public boolean isValid() { return failures.isEmpty(); }
+        public int getChecked() { return checked; }
+        public int getSystemTransactions() { return systemTransactions; }
+        public int getUnresolvedSenders() { return unresolvedSenders; }
+        public List<Failure> getFailures() { return failures; }
+
+        @Override
+        public String toString() {
+            return String.format("Signaturprüfung: %d geprüft, %d ungültig, %d System-Tx, %d ohne bekannten Schlüssel (%.1f ms)",
+                    checked, failures.size(), systemTransactions, unresolvedSenders, nanos / 1_000_000.0);
+        }
+    }
+
+    // Eine zu prüfende Transaktion samt Blockposition
+    private record Item(int blockIndex, String blockHash, Transaction tx) {}
+
+    public static Report verify(List<Block> blocks) {
+        return verify(blocks, 0, blocks.size());
+    }
+
+    /** Prüft nur die Blöcke [from, to) – z.B. die seit dem letzten Checkpoint neuen. */
+    public static Report verify(List<Block> blocks, int from, int to) {
+        long start = System.nanoTime();
+
+        List<Item> items = new ArrayList<>();
+        int systemTxs = 0;
+        for (int i = from; i < to; i++) {
+            Block block = blocks.get(i);
+            for (Transaction tx : block.getTransactions()) {
+                if (tx.getSender().equals("system")) {
+                    systemTxs++;
+                } else {
+                    items.add(new Item(i, block.getHash(), tx));
+                }
+            }
+        }
+
+        // Schlüssel-Cache pro Lauf: jede Absenderadresse wird nur einmal aufgelöst
+        Map<String, Optional<PublicKey>> keys = new ConcurrentHashMap<>();
+        List<Failure> failures = new ArrayList<>();
+        LongAdder unresolved = new LongAdder();
+        LongAdder checked = new LongAdder();
+
+        items.parallelStream().forEach(item -> {
+            Transaction tx = item.tx();
+            Optional<PublicKey> key = keys.computeIfAbsent(tx.getSender(), SignatureVerifier::resolveKey);
+            if (key.isEmpty()) {
+                unresolved.increment();
+                return;
+            }
+
+            String reason = null;
+            try {
+                if (!tx.verifySignature(key.get())) reason = "Signatur ungültig";
+            } catch (RuntimeException e) {
+                reason = "Signatur nicht lesbar: " + e.getMessage();
+            }
+            checked.increment();
+
+            if (reason != null) {
+                synchronized (failures) {
+                    failures.add(new Failure(item.blockIndex(), item.blockHash(), tx.getTxId(), reason));
+                }
+            }
+        });
+
+        failures.sort(Comparator.comparingInt(Failure::blockIndex));
+        return new Report(checked.intValue(), systemTxs, unresolved.intValue(), failures, System.nanoTime() - start);
+    }
+
+    /** Gibt die Zusammenfassung und jeden fehlerhaften Block aus. */
+    public static void printReport(Report report) {
+        if (report.isValid()) {
+            System.out.println(report);
+            return;
+        }
+        System.err.println(report);
+        for (Failure f : report.getFailures()) {
+            System.err.printf("  Block #%d (%.16s...) Tx %.16s...: %s%n", f.blockIndex(), f.blockHash(), f.txId(), f.reason());
+        }
+    }
+
+    private static Optional<PublicKey> resolveKey(String address) {
+        Wallet wallet = WalletManager.findWalletByAddress(address);
+        return wallet == null ? Optional.empty() : Optional.ofNullable(wallet.getPublicKey());
+    }
+}
@@ -0,0 +1,23 @@
+package org.fintech;
+
+/**
+ * Rückmeldungen des {@link NetworkSimulator} an die Oberfläche.
+ *
+ * Die Methoden werden auf Simulator-Threads aufgerufen; die GUI wechselt selbst in den
+ * FX-Thread (Platform.runLater), im Headless-Modus reicht ein leerer Listener.
+ */
+public interface SimulationListener {
+
+    SimulationListener NONE = new SimulationListener() {};
+
+    /** Kette oder Wallets haben sich geändert (periodisch bzw. nach einem Reset). */
+    default void onChainUpdated() {}
+
+    /** Periodische Preis-Aktualisierung (jede Sekunde). */
+    default void onPriceUpdated(double price) {}
+
+    default void onWalletCreated(Wallet wallet) {}
+
+    /** Ein neuer Block wurde gemined, angewendet und gespeichert. */
+    default void onBlockAdded(Block block) {}
+}
@@ -0,0 +1,106 @@
+package org.fintech;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zustand der Kette bei einer Höhe: SC-Balancen aller Adressen (nach den Buchungsregeln des
+ * {@link WalletManager}) und der Preis. Für den Ledger werden die Blöcke unterhalb eines Snapshots
+ * nicht mehr gebraucht – beim Start wird nur der Rest der Kette ab {@code height} nachgespielt.
+ *
+ * @param height  Anzahl der enthaltenen Blöcke (#0 bis #height-1)
+ * @param tipHash Hash von Block #height-1 – bindet den Snapshot an genau diese Kette
+ */
+public record StateSnapshot(int height, String tipHash, long timeStamp, double price, Map<String, Double> balances) {
+
+    private static final Gson gson = new GsonBuilder().create();
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".json";
+    // Der vorherige Snapshot bleibt als Rückfall erhalten
+    private static final int KEEP = 2;
+
+    /** Schreibt den Snapshot atomar (temporäre Datei + Umbenennen) und entfernt ältere bis auf KEEP. */
+    public void write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(String.format("%s%010d%s", PREFIX, height, SUFFIX));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            gson.toJson(this, writer);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> files = list(dir);
+        for (int i = KEEP; i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    /**
+     * Neuester Snapshot, der zur Kette passt: Höhe zwischen Basis und Kettenlänge und gleicher Hash
+     * an der Snapshot-Grenze. Sonst null.
+     */
+    public static StateSnapshot loadLatest(Path dir, Blockchain chain) {
+        for (Path file : list(dir)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                StateSnapshot snapshot = gson.fromJson(reader, StateSnapshot.class);
+                if (snapshot != null && snapshot.matches(chain)) return snapshot;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Snapshot " + file.getFileName() + " nicht lesbar: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /** Höhe des ältesten aufbewahrten Snapshots (aus dem Dateinamen), -1 wenn keiner vorhanden ist. */
+    public static int oldestHeight(Path dir) {
+        List<Path> files = list(dir);
+        if (files.isEmpty()) return -1;
+        String name = files.get(files.size() - 1).getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static void deleteAll(Path dir) throws IOException {
+        for (Path file : list(dir)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Block #height-1 ist evtl. schon entfernt – dann über den Vorgänger-Hash von Block #height prüfen
+    private boolean matches(Blockchain chain) {
+        if (height < chain.getBaseHeight() || height > chain.size() || height == 0) return false;
+        String boundary = height < chain.size()
+                ? chain.getBlock(height).getPreviousHash()
+                : chain.getBlock(height - 1).getHash();
+        return boundary.equals(tipHash);
+    }
+
+    // Snapshot-Dateien, neueste (höchste) zuerst
+    private static List<Path> list(Path dir) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            System.err.println("Snapshot-Verzeichnis nicht lesbar: " + e.getMessage());
+        }
+        files.sort(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed());
+        return files;
+    }
+}
@@ -1,28 +1,109 @@
 package org.fintech;
 
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Random;
 
 public class StringUtil {
 
+    // 🌟 Ein Digest pro Thread statt MessageDigest.getInstance() bei jedem Aufruf
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> newDigest("SHA-256"));
+    private static final ThreadLocal<MessageDigest> RIPEMD160 = ThreadLocal.withInitial(() -> {
+        CryptoService.ensureProvider();
+        return newDigest("RIPEMD160");
+    });
+
+    // Wiederverwendete Puffer für UTF-8-Eingaben und Hex-Ausgaben (wachsen bei Bedarf)
+    private static final ThreadLocal<byte[][]> INPUT_BUFFER = ThreadLocal.withInitial(() -> new byte[][] { new byte[256] });
+    private static final ThreadLocal<char[][]> HEX_BUFFER = ThreadLocal.withInitial(() -> new char[][] { new char[64] });
+    private static final ThreadLocal<byte[]> HASH_BUFFER = ThreadLocal.withInitial(() -> new byte[32]);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // --- SHA-256 ---
+
     public static String applySha256(String input) {
         String toHash = (input == null) ? "" : input;
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(toHash.getBytes("UTF-8"));
-            StringBuilder hex = new StringBuilder();
-            for (byte b : hash) {
-                String h = Integer.toHexString(0xff & b);
-                if (h.length() == 1) hex.append('0');
-                hex.append(h);
+
+        // ASCII-Fast-Path (Hashes, Adressen, Zahlen): direkt in den Thread-Puffer kodieren
+        byte[][] holder = INPUT_BUFFER.get();
+        int length = toHash.length();
+        if (holder[0].length < length) holder[0] = new byte[Math.max(length, holder[0].length * 2)];
+        byte[] buffer = holder[0];
+        for (int i = 0; i < length; i++) {
+            char c = toHash.charAt(i);
+            if (c >= 0x80) {
+                return applySha256(toHash.getBytes(StandardCharsets.UTF_8));
             }
-            return hex.toString();
-        } catch (Exception e) {
+            buffer[i] = (byte) c;
+        }
+
+        byte[] hash = HASH_BUFFER.get();
+        sha256(buffer, 0, length, hash, 0);
+        return toHex(hash);
+    }
+
+    public static String applySha256(byte[] input) {
+        byte[] hash = HASH_BUFFER.get();
+        sha256(input, 0, input.length, hash, 0);
+        return toHex(hash);
+    }
+
+    public static byte[] sha256(byte[] input) {
+        return SHA256.get().digest(input);
+    }
+
+    /**
+     * Garbage-freie Variante: schreibt die 32 Hash-Bytes in {@code out} ab {@code outOffset}.
+     */
+    public static void sha256(byte[] input, int offset, int length, byte[] out, int outOffset) {
+        MessageDigest digest = SHA256.get();
+        try {
+            digest.update(input, offset, length);
+            digest.digest(out, outOffset, 32);
+        } catch (DigestException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /** Der Digest des aktuellen Threads (z.B. für den Mining-Hot-Path). Nicht an andere Threads weitergeben! */
+    static MessageDigest sha256Digest() {
+        return SHA256.get();
+    }
+
+    public static byte[] ripemd160(byte[] input) {
+        return RIPEMD160.get().digest(input);
+    }
+
+    // --- HEX ---
+
+    /** Tabellenbasiertes Hex-Encoding über einen Thread-Puffer (einzige Allokation: der String). */
+    public static String toHex(byte[] bytes) {
+        char[][] holder = HEX_BUFFER.get();
+        if (holder[0].length < bytes.length * 2) holder[0] = new char[bytes.length * 2];
+        char[] chars = holder[0];
+        toHex(bytes, 0, bytes.length, chars, 0);
+        return new String(chars, 0, bytes.length * 2);
+    }
+
+    public static void toHex(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[offset + i];
+            out[outOffset + i * 2] = HEX[(b >> 4) & 0xF];
+            out[outOffset + i * 2 + 1] = HEX[b & 0xF];
+        }
+    }
+
     // Base58 für  Bitcoin-Adressen
     public static String base58Encode(byte[] input) {
         String ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
@@ -50,4 +131,4 @@ public class StringUtil {
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+}
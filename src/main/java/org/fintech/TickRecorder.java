@@ -0,0 +1,114 @@
+package org.fintech;
+
+import java.util.List;
+
+/**
+ * Zeichnet jede Preisänderung als Tick (Zeit, Preis, Volumen) in einem Ringpuffer fester Größe auf
+ * und pflegt dabei inkrementell OHLCV-Kerzen für mehrere Intervalle.
+ *
+ * Der Ring hält die letzten {@link #DEFAULT_TICK_CAPACITY} Ticks in primitiven Arrays (keine Objekte pro Tick);
+ * ältere werden überschrieben, ihre Kerzen bleiben erhalten.
+ */
+public class TickRecorder {
+
+    /** Kerzen-Intervalle mit der Anzahl aufbewahrter Kerzen. */
+    public enum Interval {
+        SECOND(1_000L, 3_600, "1s"),
+        MINUTE(60_000L, 1_440, "1m"),
+        HOUR(3_600_000L, 720, "1h");
+
+        final long millis;
+        final int capacity;
+        final String label;
+
+        Interval(long millis, int capacity, String label) {
+            this.millis = millis;
+            this.capacity = capacity;
+            this.label = label;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    static final int DEFAULT_TICK_CAPACITY = 1 << 18;
+
+    private final int capacity;
+    private final long[] times;
+    private final double[] prices;
+    private final double[] volumes;
+    private long totalTicks = 0;
+
+    private final CandleSeries[] candles = new CandleSeries[Interval.values().length];
+
+    public TickRecorder() {
+        this(DEFAULT_TICK_CAPACITY);
+    }
+
+    public TickRecorder(int capacity) {
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.prices = new double[capacity];
+        this.volumes = new double[capacity];
+        for (Interval interval : Interval.values()) {
+            candles[interval.ordinal()] = new CandleSeries(interval.millis, interval.capacity);
+        }
+    }
+
+    public synchronized void record(long timeMillis, double price, double volume) {
+        int index = (int) (totalTicks % capacity);
+        times[index] = timeMillis;
+        prices[index] = price;
+        volumes[index] = volume;
+        totalTicks++;
+        for (CandleSeries series : candles) {
+            series.update(timeMillis, price, volume);
+        }
+    }
+
+    /** Die jüngsten n Kerzen eines Intervalls, älteste zuerst. */
+    public synchronized List<Candle> candles(Interval interval, int n) {
+        return candles[interval.ordinal()].latest(n);
+    }
+
+    /** Kerzen eines Intervalls mit Beginn in [fromMillis, toMillis). */
+    public synchronized List<Candle> candles(Interval interval, long fromMillis, long toMillis) {
+        return candles[interval.ordinal()].range(fromMillis, toMillis);
+    }
+
+    public synchronized Candle currentCandle(Interval interval) {
+        return candles[interval.ordinal()].current();
+    }
+
+    /** Anzahl aller aufgezeichneten Ticks (auch der schon überschriebenen). */
+    public synchronized long getTotalTicks() {
+        return totalTicks;
+    }
+
+    /** Anzahl der Ticks, die noch im Ring liegen. */
+    public synchronized int size() {
+        return (int) Math.min(totalTicks, capacity);
+    }
+
+    /**
+     * Kopiert die jüngsten Ticks (älteste zuerst) in die übergebenen Arrays.
+     * @return Anzahl kopierter Ticks (höchstens Länge der Arrays)
+     */
+    public synchronized int copyLatest(long[] timesOut, double[] pricesOut, double[] volumesOut) {
+        int count = Math.min(size(), Math.min(timesOut.length, Math.min(pricesOut.length, volumesOut.length)));
+        long first = totalTicks - count;
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((first + i) % capacity);
+            timesOut[i] = times[index];
+            pricesOut[i] = prices[index];
+            volumesOut[i] = volumes[index];
+        }
+        return count;
+    }
+}
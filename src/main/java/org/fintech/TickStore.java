@@ -0,0 +1,371 @@
+package org.fintech;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Append-only Preis-Historie in memory-mapped Segmentdateien.
+ *
+ * Jeder Tick ist ein Record fester Breite (long Zeit ms, double Preis, double Volumen, byte Seite,
+ * auf {@link #RECORD_BYTES} aufgefüllt). Segmente heißen nach ihrer Anlagezeit und ihrer Nummer
+ * (ticks-&lt;ms&gt;-&lt;nr&gt;.dat) und fassen {@link #SEGMENT_RECORDS} Ticks; der Kopf hält die Anzahl gültiger Records
+ * und wird erst nach dem Record geschrieben – nach einem Absturz des Prozesses zählt ein abgerissener Tick nicht.
+ * Stürzt das Betriebssystem ab, kann die Platte den Kopf schon enthalten, eine Record-Seite aber noch nicht
+ * (Ticks nach dem letzten {@link #sync()}). open() prüft deshalb in den letzten beiden Segmenten die
+ * Zeitreihenfolge und schneidet beim ersten ungültigen Record ab; solche Ticks fehlen danach.
+ *
+ * Ist das aktive Segment halb voll, legt der Vorbereiter (siehe {@link #setPreparer}) das nächste an und
+ * mappt es; der Wechsel in {@link #append} kostet dann keinen Plattenzugriff.
+ *
+ * Zeitstempel steigen monoton; Zeitfenster werden über die Startzeiten der Segmente (erster Tick) und
+ * danach per Binärsuche im Segment gefunden, ohne davor liegende Ticks zu lesen.
+ */
+public class TickStore implements Closeable {
+
+    /** Empfänger für gelesene Ticks (ohne Objekt pro Tick). */
+    @FunctionalInterface
+    public interface TickConsumer {
+        void accept(long timeMillis, double price, double volume, int side);
+    }
+
+    public static final int SIDE_NONE = 0;
+    public static final int SIDE_BUY = 1;
+    public static final int SIDE_SELL = -1;
+
+    static final int HEADER_BYTES = 16;   // int magic + int version + long anzahl
+    static final int RECORD_BYTES = 32;
+    static final int SEGMENT_RECORDS = 1 << 16;
+    private static final int MAGIC = 0x5449434B; // "TICK"
+    private static final int VERSION = 1;
+    private static final String PREFIX = "ticks-";
+    private static final String SUFFIX = ".dat";
+
+    private final Path dir;
+    private final List<Segment> segments = new ArrayList<>();
+    private long lastTime = Long.MIN_VALUE;
+    private long totalRecords = 0;
+    private int nextSegmentNo = 0;
+    // Volle Segmente, deren force() noch aussteht – erledigt sync(), nicht der schreibende Thread
+    private final List<MappedByteBuffer> unsynced = new ArrayList<>();
+    // Schon angelegtes, leeres nächstes Segment (oder null) und wer es anlegt
+    private Segment spare;
+    private boolean sparePending;
+    private Executor preparer;
+
+    private static final class Segment {
+        long startMillis; // Zeit des ersten Ticks
+        final Path path;
+        MappedByteBuffer buffer; // erst bei Bedarf gemappt
+        int count;
+
+        Segment(long startMillis, Path path, int count) {
+            this.startMillis = startMillis;
+            this.path = path;
+            this.count = count;
+        }
+    }
+
+    private TickStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        long previousTime = Long.MIN_VALUE;
+        for (int f = 0; f < files.size(); f++) {
+            Path file = files.get(f);
+            Segment segment = new Segment(startOf(file), file, 0);
+            map(segment, true);
+            segment.count = readCount(segment);
+            // Nur die jüngsten Segmente können beim Absturz noch nicht gesichert gewesen sein
+            if (f >= files.size() - 2) segment.count = checkRecords(segment, previousTime);
+            if (segment.count == 0) {
+                // Leeres Segment (vorbereitet, aber nie benutzt, oder Absturz direkt nach dem Anlegen)
+                segment.buffer = null;
+                Files.deleteIfExists(file);
+                continue;
+            }
+            segment.startMillis = segment.buffer.getLong(offset(0));
+            segments.add(segment);
+            totalRecords += segment.count;
+            nextSegmentNo = numberOf(file) + 1;
+            previousTime = segment.buffer.getLong(offset(segment.count - 1));
+        }
+        if (!segments.isEmpty()) lastTime = previousTime;
+        // Nur das letzte Segment bleibt schreibbar gemappt
+        for (int i = 0; i < segments.size() - 1; i++) segments.get(i).buffer = null;
+    }
+
+    public static TickStore open(Path dir) throws IOException {
+        return new TickStore(dir);
+    }
+
+    /**
+     * Wer das nächste Segment im Voraus anlegt (z.B. der Schreib-Thread des {@link PersistenceWriter}).
+     * Ohne Vorbereiter legt append es beim Wechsel selbst an.
+     */
+    public synchronized void setPreparer(Executor preparer) {
+        this.preparer = preparer;
+    }
+
+    // --- SCHREIBEN ---
+
+    /** Hängt einen Tick an; ein Zeitstempel vor dem letzten wird auf diesen angehoben. */
+    public synchronized void append(long timeMillis, double price, double volume, int side) throws IOException {
+        long time = Math.max(timeMillis, lastTime);
+        Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active == null || active.count == SEGMENT_RECORDS) {
+            if (active != null) {
+                unsynced.add(active.buffer);
+                active.buffer = null;
+            }
+            if (spare != null) {
+                active = spare;
+                spare = null;
+                active.startMillis = time;
+                segments.add(active);
+            } else {
+                active = createSegment(time);
+            }
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int position = offset(active.count);
+        buffer.putLong(position, time);
+        buffer.putDouble(position + 8, price);
+        buffer.putDouble(position + 16, volume);
+        buffer.put(position + 24, (byte) side);
+        // Anzahl erst nach dem Record – ein halber Record bleibt unsichtbar
+        active.count++;
+        buffer.putLong(8, active.count);
+        lastTime = time;
+        totalRecords++;
+        if (active.count >= SEGMENT_RECORDS / 2 && spare == null && !sparePending && preparer != null) {
+            sparePending = true;
+            preparer.execute(this::prepareSegment);
+        }
+    }
+
+    // Legt das nächste Segment an (Datei + Mapping außerhalb der Sperre); append übernimmt es beim Wechsel
+    private void prepareSegment() {
+        Segment segment;
+        int activeCount;
+        synchronized (this) {
+            segment = new Segment(lastTime, segmentPath(lastTime), 0);
+            activeCount = segments.size();
+        }
+        try {
+            initialize(segment);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Anlegen des nächsten Tick-Segments: " + e.getMessage());
+            synchronized (this) {
+                sparePending = false;
+            }
+            return;
+        }
+        synchronized (this) {
+            sparePending = false;
+            // Inzwischen selbst gewechselt: das vorbereitete Segment hätte die falsche Nummer
+            if (segments.size() == activeCount) {
+                spare = segment;
+                return;
+            }
+        }
+        segment.buffer = null;
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            System.err.println("Überzähliges Tick-Segment nicht gelöscht: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Schreibt volle und aktives Segment auf die Platte; append läuft währenddessen weiter (msync außerhalb der Sperre).
+     */
+    public void sync() {
+        List<MappedByteBuffer> buffers;
+        synchronized (this) {
+            buffers = new ArrayList<>(unsynced);
+            unsynced.clear();
+            if (!segments.isEmpty() && segments.get(segments.size() - 1).buffer != null) {
+                buffers.add(segments.get(segments.size() - 1).buffer);
+            }
+        }
+        for (MappedByteBuffer buffer : buffers) buffer.force();
+    }
+
+    // --- LESEN ---
+
+    /**
+     * Liest alle Ticks mit Zeit in [fromMillis, toMillis) in Zeitreihenfolge.
+     * @return Anzahl gelesener Ticks
+     */
+    public synchronized long query(long fromMillis, long toMillis, TickConsumer consumer) throws IOException {
+        long read = 0;
+        for (int s = firstSegmentFor(fromMillis); s < segments.size(); s++) {
+            Segment segment = segments.get(s);
+            if (segment.startMillis >= toMillis) break;
+            MappedByteBuffer buffer = map(segment, false);
+            for (int i = lowerBound(segment, fromMillis); i < segment.count; i++) {
+                int position = offset(i);
+                long time = buffer.getLong(position);
+                if (time >= toMillis) return read;
+                consumer.accept(time, buffer.getDouble(position + 8), buffer.getDouble(position + 16), buffer.get(position + 24));
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /** Spielt die gesamte Historie ab (z.B. für Backtests). */
+    public long replay(TickConsumer consumer) throws IOException {
+        return query(Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+    }
+
+    /** Preis des letzten Ticks oder NaN, wenn der Store leer ist. */
+    public synchronized double getLastPrice() {
+        if (segments.isEmpty()) return Double.NaN;
+        Segment last = segments.get(segments.size() - 1);
+        return last.buffer.getDouble(offset(last.count - 1) + 8);
+    }
+
+    public synchronized long getLastTime() {
+        return lastTime;
+    }
+
+    public synchronized long size() {
+        return totalRecords;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        sync();
+        for (Segment segment : segments) segment.buffer = null;
+    }
+
+    // --- INTERNES ---
+
+    // Letztes Segment, das vor fromMillis beginnt (Binärsuche über die Startzeiten); nur dieses kann frühere Ticks enthalten
+    private int firstSegmentFor(long fromMillis) {
+        int low = 0;
+        int high = segments.size() - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid).startMillis < fromMillis) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    // Erster Record mit Zeit >= fromMillis
+    private static int lowerBound(Segment segment, long fromMillis) {
+        int low = 0;
+        int high = segment.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segment.buffer.getLong(offset(mid)) < fromMillis) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private Segment createSegment(long startMillis) throws IOException {
+        Segment segment = new Segment(startMillis, segmentPath(startMillis), 0);
+        initialize(segment);
+        segments.add(segment);
+        return segment;
+    }
+
+    // Nummer im Namen: auch bei mehr als einem Segment pro Millisekunde eindeutig; nur unter der Sperre
+    private Path segmentPath(long createdMillis) {
+        return dir.resolve(String.format("%s%013d-%06d%s", PREFIX, createdMillis, nextSegmentNo++, SUFFIX));
+    }
+
+    private static void initialize(Segment segment) throws IOException {
+        map(segment, true);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putLong(8, 0);
+    }
+
+    private static MappedByteBuffer map(Segment segment, boolean writable) throws IOException {
+        if (segment.buffer != null) return segment.buffer;
+        if (writable) {
+            try (FileChannel channel = FileChannel.open(segment.path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) SEGMENT_RECORDS * RECORD_BYTES);
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                segment.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        return segment.buffer;
+    }
+
+    private static int readCount(Segment segment) throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        if (buffer.getInt(0) == 0 && buffer.getLong(8) == 0) return 0;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Unbekanntes Format in " + segment.path.getFileName());
+        }
+        long count = buffer.getLong(8);
+        if (count < 0 || count > SEGMENT_RECORDS) {
+            throw new IOException("Ungültige Tick-Anzahl " + count + " in " + segment.path.getFileName());
+        }
+        return (int) count;
+    }
+
+    // Gültig ist ein Record, dessen Zeit nicht vor der vorigen liegt und der nicht leer ist (fehlende Seite = Nullen).
+    // Ab dem ersten ungültigen wird der Kopf gekürzt; @return Anzahl gültiger Records
+    private static int checkRecords(Segment segment, long previousTime) {
+        MappedByteBuffer buffer = segment.buffer;
+        long time = previousTime;
+        for (int i = 0; i < segment.count; i++) {
+            int position = offset(i);
+            long recordTime = buffer.getLong(position);
+            boolean empty = recordTime == 0 && buffer.getDouble(position + 8) == 0.0;
+            if (recordTime < time || empty) {
+                System.err.printf("Tick-Segment %s: Record %d von %d ungültig (Absturz?) – die Historie endet davor.%n",
+                        segment.path.getFileName(), i, segment.count);
+                buffer.putLong(8, i);
+                return i;
+            }
+            time = recordTime;
+        }
+        return segment.count;
+    }
+
+    private static long startOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.lastIndexOf('-')));
+    }
+
+    private static int numberOf(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(name.lastIndexOf('-') + 1, name.length() - SUFFIX.length()));
+    }
+
+    private static int offset(int record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,203 @@
+package org.fintech;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Nebenläufige Handels-Engine: viele Trader-Agenten laufen als virtuelle Threads und erzeugen
+ * Orders mit einer konfigurierbaren Gesamtrate (Poisson-verteilte Abstände). Die Orders landen in
+ * einer gemeinsamen, begrenzten Warteschlange; Executor-Threads (einer pro Kern) führen sie aus –
+ * Signieren und Einreihen in den Mempool laufen damit parallel.
+ *
+ * Ist die Warteschlange voll, wird die Order verworfen und gezählt (Gegendruck statt Stau).
+ */
+public class TradingEngine {
+
+    /** Handelsabsicht eines Agenten; Betrag und Preis werden erst bei der Ausführung bestimmt. */
+    public record Order(Wallet wallet, boolean buy, double fraction, long createdNanos) {}
+
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final Function<Random, Order> orderSource;
+    private final Predicate<Order> orderHandler;
+    private final BlockingQueue<Order> orders = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile int concurrency = 4;
+    private volatile double targetRate = 2.0; // Orders pro Sekunde (alle Agenten zusammen)
+    private volatile int executorThreads = Runtime.getRuntime().availableProcessors();
+
+    private final List<Thread> agents = new ArrayList<>();
+    private final List<Thread> executors = new ArrayList<>();
+
+    // Statistik
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    // Latenz einer Order: Erzeugung durch den Agenten bis Ende der Ausführung
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile long startNanos;
+
+    /**
+     * @param orderSource  erzeugt die nächste Order eines Agenten (null = gerade nichts zu tun)
+     * @param orderHandler führt eine Order aus; false = abgelehnt (z.B. zu wenig Guthaben)
+     */
+    public TradingEngine(Function<Random, Order> orderSource, Predicate<Order> orderHandler) {
+        this.orderSource = orderSource;
+        this.orderHandler = orderHandler;
+    }
+
+    public synchronized void start() {
+        if (running.getAndSet(true)) return;
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < executorThreads; i++) {
+            executors.add(Thread.ofPlatform().daemon(true).name("order-executor-" + i).start(this::executeLoop));
+        }
+        for (int i = 0; i < concurrency; i++) {
+            agents.add(Thread.ofVirtual().name("trader-" + i).start(this::agentLoop));
+        }
+        System.out.printf("Trading-Engine gestartet: %d Agenten, Zielrate %.1f Orders/s, %d Executor-Threads%n",
+                concurrency, targetRate, executorThreads);
+    }
+
+    /** Stoppt Agenten und Executoren; bereits eingereihte Orders werden noch ausgeführt. */
+    public synchronized void stop() {
+        if (!running.getAndSet(false)) return;
+
+        joinAll(agents);
+        // Executoren beenden sich, sobald die Warteschlange leer ist
+        joinAll(executors);
+        System.out.println(statsSummary());
+    }
+
+    private static void joinAll(List<Thread> threads) {
+        for (Thread t : threads) {
+            t.interrupt();
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+    }
+
+    // --- AGENTEN & EXECUTOREN ---
+
+    private void agentLoop() {
+        Random random = ThreadLocalRandom.current();
+        while (running.get()) {
+            // Jeder Agent trägt concurrency-tel der Zielrate bei; exponentielle Abstände = Poisson-Ankünfte
+            double perAgentRate = targetRate / Math.max(1, concurrency);
+            long pauseNanos = (long) (-Math.log(1.0 - random.nextDouble()) / perAgentRate * 1_000_000_000L);
+            LockSupport.parkNanos(pauseNanos);
+            if (!running.get() || Thread.currentThread().isInterrupted()) break;
+
+            Order order;
+            try {
+                order = orderSource.apply(random);
+            } catch (RuntimeException e) {
+                System.err.println("Fehler beim Erzeugen einer Order: " + e.getMessage());
+                continue;
+            }
+            if (order == null) continue;
+
+            submitted.increment();
+            if (!orders.offer(order)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private void executeLoop() {
+        while (running.get() || !orders.isEmpty()) {
+            Order order;
+            try {
+                order = orders.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Beim Stoppen: Rest der Warteschlange noch abarbeiten
+                order = orders.poll();
+            }
+            if (order == null) continue;
+
+            try {
+                if (orderHandler.test(order)) {
+                    executed.increment();
+                    long latency = System.nanoTime() - order.createdNanos();
+                    latencyNanos.add(latency);
+                    maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                } else {
+                    rejected.increment();
+                }
+            } catch (RuntimeException e) {
+                rejected.increment();
+                System.err.println("Fehler beim Ausführen einer Order: " + e.getMessage());
+            }
+        }
+    }
+
+    // --- KONFIGURATION (wirkt beim nächsten Start bzw. bei der Rate sofort) ---
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public int getConcurrency() { return concurrency; }
+
+    public void setTargetRate(double ordersPerSecond) {
+        this.targetRate = Math.max(0.01, ordersPerSecond);
+    }
+
+    public double getTargetRate() { return targetRate; }
+
+    public void setExecutorThreads(int threads) {
+        this.executorThreads = Math.max(1, threads);
+    }
+
+    public int getExecutorThreads() { return executorThreads; }
+
+    public boolean isRunning() { return running.get(); }
+
+    // --- STATISTIK ---
+
+    public long getSubmitted() { return submitted.sum(); }
+    public long getExecuted() { return executed.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getDropped() { return dropped.sum(); }
+    public int getQueueDepth() { return orders.size(); }
+
+    /** Mittlere Latenz ausgeführter Orders (Erzeugung bis Einreihen in den Mempool) in ms. */
+    public double getAverageLatencyMillis() {
+        long count = executed.sum();
+        return count == 0 ? 0.0 : latencyNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    /** Ausgeführte Orders pro Sekunde seit dem Start. */
+    public double getExecutedRate() {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos <= 0 ? 0.0 : executed.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    public String statsSummary() {
+        return String.format("Trading-Engine: %d Orders, %d ausgeführt (%.1f/s), %d abgelehnt, %d verworfen, %d in der Warteschlange",
+                getSubmitted(), getExecuted(), getExecutedRate(), getRejected(), getDropped(), getQueueDepth());
+    }
+}
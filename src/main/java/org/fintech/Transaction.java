@@ -30,36 +30,31 @@ public class Transaction {
         this.signature = new byte[0];
     }
 
+    // Wiederherstellung aus dem Binärformat (BlockCodec) – nichts wird neu berechnet
+    Transaction(String sender, String recipient, double amount, String message, String txId, byte[] signature) {
+        this.sender = sender;
+        this.recipient = recipient;
+        this.amount = amount;
+        this.message = message;
+        this.txId = txId;
+        this.signature = signature;
+    }
+
     private byte[] sign(PrivateKey key) {
-        try {
-            // Sicherstellen, dass der Provider registriert ist
-            Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
-            Signature sig = Signature.getInstance("ECDSA", "BC");
-            sig.initSign(key);
-            String data = sender + recipient + amount + message + txId;
-            sig.update(data.getBytes());
-            return sig.sign();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return CryptoService.sign(key, signedData());
     }
 
     // 🌟 NEUE METHODE: Überprüft die Signatur der Transaktion
     public boolean verifySignature(PublicKey key) {
         // System-Transaktionen sind immer gültig
         if (sender.equals("system")) return true;
+        return CryptoService.verify(key, signedData(), signature);
+    }
 
-        try {
-            // Sicherstellen, dass der Provider registriert ist
-            Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
-            Signature sig = Signature.getInstance("ECDSA", "BC");
-            sig.initVerify(key);
-            String data = sender + recipient + amount + message + txId;
-            sig.update(data.getBytes());
-            return sig.verify(signature);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    // Signierte Daten (unverändertes Format, damit bestehende Signaturen gültig bleiben)
+    private byte[] signedData() {
+        String data = sender + recipient + amount + message + txId;
+        return data.getBytes();
     }
 
     private String calculateHash() {
@@ -72,4 +67,5 @@ public class Transaction {
     public double getAmount() { return amount; }
     public String getMessage() { return message; }
     public String getTxId() { return txId; }
+    byte[] getSignature() { return signature; }
 }
\ No newline at end of file
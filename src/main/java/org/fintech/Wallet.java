@@ -1,10 +1,6 @@
 package org.fintech;
 
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import java.security.*;
-import java.security.spec.ECGenParameterSpec;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 
 
@@ -67,16 +63,10 @@ public class Wallet {
     public void restoreKeysFromBase64() {
         try {
             if (privateKeyB64 != null) {
-                byte[] privBytes = Base64.getDecoder().decode(privateKeyB64);
-                PKCS8EncodedKeySpec privSpec = new PKCS8EncodedKeySpec(privBytes);
-                KeyFactory kf = KeyFactory.getInstance("ECDSA", "BC");
-                this.privateKey = kf.generatePrivate(privSpec);
+                this.privateKey = CryptoService.decodePrivateKey(Base64.getDecoder().decode(privateKeyB64));
             }
             if (publicKeyB64 != null) {
-                byte[] pubBytes = Base64.getDecoder().decode(publicKeyB64);
-                X509EncodedKeySpec pubSpec = new X509EncodedKeySpec(pubBytes);
-                KeyFactory kf = KeyFactory.getInstance("ECDSA", "BC");
-                this.publicKey = kf.generatePublic(pubSpec);
+                this.publicKey = CryptoService.decodePublicKey(Base64.getDecoder().decode(publicKeyB64));
             }
         } catch (Exception e) {
             throw new RuntimeException("Keys konnten nicht wiederhergestellt werden", e);
@@ -85,11 +75,7 @@ public class Wallet {
 
     private void generateKeyPair() {
         try {
-            Security.addProvider(new BouncyCastleProvider());
-            KeyPairGenerator gen = KeyPairGenerator.getInstance("ECDSA", "BC");
-            ECGenParameterSpec spec = new ECGenParameterSpec("secp256k1");
-            gen.initialize(spec, new SecureRandom());
-            KeyPair pair = gen.generateKeyPair();
+            KeyPair pair = CryptoService.generateKeyPair();
             this.privateKey = pair.getPrivate();
             this.publicKey = pair.getPublic();
 
@@ -103,17 +89,14 @@ public class Wallet {
     private String generateAddress(PublicKey publicKey) {
         try {
             byte[] pubBytes = publicKey.getEncoded();
-            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
-            byte[] shaHash = sha256.digest(pubBytes);
-            MessageDigest ripemd160 = MessageDigest.getInstance("RIPEMD160", "BC");
-            byte[] ripeHash = ripemd160.digest(shaHash);
+            byte[] shaHash = StringUtil.sha256(pubBytes);
+            byte[] ripeHash = StringUtil.ripemd160(shaHash);
 
             byte[] versioned = new byte[ripeHash.length + 1];
             versioned[0] = 0x00;
             System.arraycopy(ripeHash, 0, versioned, 1, ripeHash.length);
 
-            MessageDigest doubleSha = MessageDigest.getInstance("SHA-256");
-            byte[] checksum = doubleSha.digest(doubleSha.digest(versioned));
+            byte[] checksum = StringUtil.sha256(StringUtil.sha256(versioned));
             byte[] finalBytes = new byte[versioned.length + 4];
             System.arraycopy(versioned, 0, finalBytes, 0, versioned.length);
             System.arraycopy(checksum, 0, finalBytes, versioned.length, 4);
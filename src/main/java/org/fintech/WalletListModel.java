@@ -0,0 +1,122 @@
+package org.fintech;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Modell der Wallet-Übersicht in {@link MyChainGUI}. Die Zeilen bleiben über Updates hinweg bestehen:
+ * {@link #update()} übernimmt nur geänderte Balancen, fügt neue Wallets an, entfernt verschwundene
+ * und sortiert nur, wenn die Reihenfolge tatsächlich nicht mehr stimmt.
+ *
+ * Nur im FX-Thread verwenden.
+ */
+public class WalletListModel {
+
+    private final ObservableList<WalletRow> rows = FXCollections.observableArrayList(WalletRow::observables);
+    private final Map<String, WalletRow> rowsByAddress = new HashMap<>();
+    private Comparator<WalletRow> comparator = Comparator.comparingDouble(WalletRow::getBalance).reversed();
+    private String richestAddress;
+
+    // Messwerte des letzten Updates
+    private long lastUpdateNanos;
+    private int lastChangedRows;
+
+    public ObservableList<WalletRow> getRows() {
+        return rows;
+    }
+
+    /** Setzt die Sortierung und sortiert einmal neu. */
+    public void setComparator(Comparator<WalletRow> comparator) {
+        this.comparator = comparator;
+        FXCollections.sort(rows, comparator);
+    }
+
+    /**
+     * Gleicht die Zeilen mit {@link WalletManager#getWallets()} ab.
+     * @return true, wenn sich die reichste Wallet geändert hat (Hervorhebung neu zeichnen)
+     */
+    public boolean update() {
+        long start = System.nanoTime();
+        List<Wallet> wallets = WalletManager.getWallets();
+        String supplyAddress = WalletManager.SUPPLY_WALLET.getAddress();
+
+        int changed = 0;
+        boolean structural = false;
+        boolean replaced = false;
+        Wallet richest = null;
+        for (Wallet w : wallets) {
+            WalletRow row = rowsByAddress.get(w.getAddress());
+            if (row == null) {
+                row = new WalletRow(w);
+                rowsByAddress.put(w.getAddress(), row);
+                rows.add(row);
+                structural = true;
+                changed++;
+            } else if (row.getWallet() != w) {
+                // Wallets wurden neu geladen → Zeile ersetzen (in der Liste gesammelt nach der Schleife)
+                rowsByAddress.put(w.getAddress(), new WalletRow(w));
+                replaced = true;
+                structural = true;
+                changed++;
+            } else if (row.refresh()) {
+                changed++;
+            }
+            if (!w.getAddress().equals(supplyAddress) && (richest == null || w.getBalance() > richest.getBalance())) {
+                richest = w;
+            }
+        }
+
+        if (replaced) {
+            // Ein Durchlauf statt indexOf pro Zeile: jede Zeile über ihre Adresse auf den aktuellen Stand bringen
+            List<WalletRow> rebuilt = new ArrayList<>(rows.size());
+            for (WalletRow row : rows) {
+                rebuilt.add(rowsByAddress.getOrDefault(row.getAddress(), row));
+            }
+            rows.setAll(rebuilt);
+        }
+
+        if (rowsByAddress.size() > wallets.size()) {
+            rows.removeIf(row -> WalletManager.findWalletByAddress(row.getAddress()) != row.getWallet());
+            rowsByAddress.values().removeIf(row -> WalletManager.findWalletByAddress(row.getAddress()) != row.getWallet());
+            structural = true;
+        }
+
+        if ((structural || changed > 0) && !isSorted()) {
+            FXCollections.sort(rows, comparator);
+        }
+
+        String newRichest = richest != null ? richest.getAddress() : null;
+        boolean richestChanged = !Objects.equals(newRichest, richestAddress);
+        richestAddress = newRichest;
+
+        lastChangedRows = changed;
+        lastUpdateNanos = System.nanoTime() - start;
+        return richestChanged;
+    }
+
+    private boolean isSorted() {
+        for (int i = 1; i < rows.size(); i++) {
+            if (comparator.compare(rows.get(i - 1), rows.get(i)) > 0) return false;
+        }
+        return true;
+    }
+
+    public String getRichestAddress() {
+        return richestAddress;
+    }
+
+    public long getLastUpdateNanos() {
+        return lastUpdateNanos;
+    }
+
+    public int getLastChangedRows() {
+        return lastChangedRows;
+    }
+}
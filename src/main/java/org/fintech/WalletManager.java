@@ -5,14 +5,29 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors; // Import für stream.Collectors
 
 public class WalletManager {
     private static final String WALLETS_FILE = "wallets.json";
+    // Änderbar für Benchmarks und Tests, damit sie nicht die echte Wallet-Datei überschreiben
+    private static volatile Path walletsFile = Path.of(WALLETS_FILE);
+    // Hält konkurrierende saveWallets-Aufrufe in Reihenfolge (temporäre Datei + Umbenennen)
+    private static final Object WALLETS_FILE_LOCK = new Object();
     private static final Gson gson = new GsonBuilder().create();
 
     // Dedizierte Wallet für den Coin-Supply
@@ -22,8 +37,21 @@ public class WalletManager {
     // 🛑 NEU: Historischer Zähler für die Simulationsgeschwindigkeit
     private static int maxWalletCountForSimulation = 0;
 
+    // 🌟 Prüfmodus: vergleicht den inkrementellen Ledger nach jedem Block mit einem vollständigen Replay
+    private static volatile boolean consistencyCheck = false;
+    private static final double BALANCE_TOLERANCE = 1e-6;
+
+    // 🌟 NEU: Laufzeiten für die Metrik-Registry
+    private static final LatencyHistogram SAVE_TIME = Metrics.histogram("mychain_wallets_save_seconds", "Dauer von saveWallets");
+    private static final LatencyHistogram RECALCULATE_TIME = Metrics.histogram("mychain_balances_recalculate_seconds", "Dauer eines vollständigen Balance-Replays");
+    private static final LatencyHistogram APPLY_BLOCK_TIME = Metrics.histogram("mychain_balances_apply_block_seconds", "Dauer der inkrementellen Balance-Aktualisierung pro Block");
+
     private static List<Wallet> wallets = new CopyOnWriteArrayList<>();
 
+    // 🌟 Indizes für O(1)-Lookups – werden in registerWallet() mit der Liste synchron gehalten
+    private static final Map<String, Wallet> walletsByAddress = new ConcurrentHashMap<>();
+    private static final Map<Integer, Wallet> walletsById = new ConcurrentHashMap<>();
+
     public static final WalletManager INSTANCE = new WalletManager();
     private WalletManager() {}
 
@@ -36,9 +64,11 @@ public class WalletManager {
         maxWalletCountForSimulation = 0;
 
         wallets.clear();
-        wallets.add(SUPPLY_WALLET);
+        walletsByAddress.clear();
+        walletsById.clear();
+        registerWallet(SUPPLY_WALLET);
 
-        File file = new File(WALLETS_FILE);
+        File file = walletsFile.toFile();
 
         if (file.exists() && file.length() > 0) {
             try (Reader reader = new FileReader(file)) {
@@ -47,10 +77,14 @@ public class WalletManager {
 
                 if (loadedWallets == null) loadedWallets = new ArrayList<>();
 
+                // Gson setzt transiente Felder nicht: die Schlüssel stammen sonst aus dem Konstruktor
+                // (frisch generiert) und passen nicht zur gespeicherten Adresse
+                loadedWallets.forEach(Wallet::restoreKeysFromBase64);
+
                 // Füge geladene Wallets hinzu (nur die kritischen Wallets sollten in der Datei sein)
                 loadedWallets.stream()
                         .filter(w -> !w.getAddress().equals(SUPPLY_WALLET.getAddress()))
-                        .forEach(wallets::add);
+                        .forEach(WalletManager::registerWallet);
 
                 // Bestimme die nächste freie ID basierend auf den geladenen Wallets
                 int maxId = loadedWallets.stream()
@@ -70,12 +104,14 @@ public class WalletManager {
         else {
             // Initialisierung für leere Datei/ersten Start
             wallets = new CopyOnWriteArrayList<>();
+            walletsByAddress.clear();
+            walletsById.clear();
             SUPPLY_WALLET.setUsdBalance(0.0);
-            wallets.add(SUPPLY_WALLET);
+            registerWallet(SUPPLY_WALLET);
 
             // Erste Benutzer-Wallet mit spezieller Initialisierung
             Wallet firstUser = createNewUserWallet();
-            wallets.add(firstUser);
+            registerWallet(firstUser);
         }
 
         // 🛑 Aktualisiert den Zähler mit der aktuellen geladenen Größe
@@ -90,32 +126,57 @@ public class WalletManager {
     /**
      * Speichert nur kritische Wallets (Supply, Exchange) auf die Festplatte,
      * um die Dateigröße klein zu halten. User Wallets bleiben im RAM.
+     * Nur das Serialisieren läuft unter der WalletManager-Sperre, das Schreiben danach.
      */
-    public static synchronized void saveWallets() {
-        List<Wallet> allWallets = getWallets();
-        List<Wallet> walletsToSave = new ArrayList<>();
+    public static void saveWallets() {
+        synchronized (WALLETS_FILE_LOCK) {
+            String json;
+            synchronized (WalletManager.class) {
+                List<Wallet> allWallets = getWallets();
+                List<Wallet> walletsToSave = new ArrayList<>();
+
+                // 1. Supply Wallet speichern
+                if (!allWallets.isEmpty()) {
+                    walletsToSave.add(SUPPLY_WALLET);
+                }
 
-        // 1. Supply Wallet speichern
-        if (!allWallets.isEmpty()) {
-            walletsToSave.add(SUPPLY_WALLET);
-        }
+                // 2. Exchange Wallet speichern (Voraussetzung: MyChainGUI.EXCHANGE_ADDRESS muss existieren)
+                Wallet exchange = findWalletByAddress(MyChainGUI.EXCHANGE_ADDRESS);
+                if (exchange != null && !walletsToSave.contains(exchange)) {
+                    walletsToSave.add(exchange);
+                }
+                json = gson.toJson(walletsToSave);
+            }
 
-        // 2. Exchange Wallet speichern (Voraussetzung: MyChainGUI.EXCHANGE_ADDRESS muss existieren)
-        Wallet exchange = allWallets.stream()
-                .filter(w -> w.getAddress().equals(MyChainGUI.EXCHANGE_ADDRESS))
-                .findFirst().orElse(null);
-        if (exchange != null && !walletsToSave.contains(exchange)) {
-            walletsToSave.add(exchange);
+            // 🛑 Nur die kritischen Wallets speichern – atomar: temporäre Datei, fsync, Umbenennen
+            long start = System.nanoTime();
+            Path target = walletsFile;
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer bytes = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+                    while (bytes.hasRemaining()) channel.write(bytes);
+                    channel.force(false);
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("Fehler beim Speichern der Wallets: " + e.getMessage());
+            }
+            SAVE_TIME.record(System.nanoTime() - start);
         }
+    }
 
-        // 🛑 Nur die kritischen Wallets speichern
-        try (Writer writer = new FileWriter(WALLETS_FILE)) {
-            gson.toJson(walletsToSave, writer);
-        } catch (IOException e) {
-            System.err.println("Fehler beim Speichern der Wallets: " + e.getMessage());
+
+    /** Andere Datei für loadWallets/saveWallets (Standard: wallets.json im Arbeitsverzeichnis). */
+    public static void setWalletsFile(Path file) {
+        synchronized (WALLETS_FILE_LOCK) {
+            walletsFile = file;
         }
     }
 
+    public static Path getWalletsFile() {
+        return walletsFile;
+    }
 
     private static Wallet createNewUserWallet() {
         Random r = new Random();
@@ -164,12 +225,12 @@ public class WalletManager {
 
     public static synchronized Wallet createWallet() {
         Wallet newWallet = createNewUserWallet();
-        wallets.add(newWallet);
+        registerWallet(newWallet);
         // 🛑 WICHTIG: Aktualisiert den Zähler im RAM für die Geschwindigkeitsskalierung
         if (wallets.size() > maxWalletCountForSimulation) {
             maxWalletCountForSimulation = wallets.size();
         }
-        saveWallets(); // Speichert nur kritische Wallets
+        PersistenceWriter.walletsChanged(); // Speichert nur kritische Wallets (im Hintergrund)
         return newWallet;
     }
 
@@ -178,10 +239,19 @@ public class WalletManager {
     }
 
     public static Wallet findWalletByAddress(String addr) {
-        return wallets.stream()
-                .filter(w -> w.getAddress().equals(addr))
-                .findFirst()
-                .orElse(null);
+        if (addr == null) return null;
+        return walletsByAddress.get(addr);
+    }
+
+    public static Wallet findWalletById(int uniqueId) {
+        return walletsById.get(uniqueId);
+    }
+
+    // Fügt eine Wallet der Liste und beiden Indizes hinzu (erste Wallet pro Adresse/ID gewinnt)
+    private static void registerWallet(Wallet wallet) {
+        if (walletsByAddress.putIfAbsent(wallet.getAddress(), wallet) != null) return;
+        walletsById.putIfAbsent(wallet.getUniqueId(), wallet);
+        wallets.add(wallet);
     }
 
     // --- NEUE HILFSFUNKTION FÜR DEN SIMULATOR ---
@@ -190,31 +260,119 @@ public class WalletManager {
         return maxWalletCountForSimulation;
     }
 
+    public static void setConsistencyCheck(boolean enabled) {
+        consistencyCheck = enabled;
+    }
+
+    public static boolean isConsistencyCheck() {
+        return consistencyCheck;
+    }
+
+    /**
+     * Vollständiger Replay der gespeicherten Kette. Wird nur beim Start
+     * (loadWallets) oder auf ausdrücklichen Wunsch benötigt.
+     */
     public static synchronized void recalculateAllBalances() {
+        recalculateAllBalances(BlockchainPersistence.loadBlockchain("MyChain", 1));
+    }
+
+    /**
+     * Replay einer bereits geladenen Kette (z.B. nach einem Reset) – ab ihrem letzten Snapshot.
+     */
+    public static synchronized void recalculateAllBalances(Blockchain chain) {
+        long start = System.nanoTime();
         for (Wallet w : wallets) w.setBalance(0.0);
 
-        Blockchain chain = BlockchainPersistence.loadBlockchain("MyChain", 1);
+        replay(chain, chain.size(), WalletManager::applyDelta);
+        RECALCULATE_TIME.record(System.nanoTime() - start);
+        PersistenceWriter.walletsChanged();
+    }
 
-        for (Block block : chain.getChain()) {
-            for (Transaction tx : block.getTransactions()) {
-                String sender = tx.getSender();
-                String recipient = tx.getRecipient();
-                double amount = tx.getAmount();
+    /**
+     * SC-Balancen aller Adressen (auch ohne registrierte Wallet) nach den ersten toHeight Blöcken,
+     * z.B. für einen neuen {@link StateSnapshot}.
+     */
+    public static Map<String, Double> replayBalances(Blockchain chain, int toHeight) {
+        Map<String, Double> balances = new HashMap<>();
+        replay(chain, toHeight, (address, delta) -> balances.merge(address, delta, Double::sum));
+        return balances;
+    }
 
-                boolean isCoinbase = "system".equals(sender) || sender == null || sender.isEmpty();
-                boolean isExchangeSell = MyChainGUI.EXCHANGE_ADDRESS.equals(recipient);
+    // Startzustand aus dem Snapshot der Kette, danach nur die Blöcke ab der Snapshot-Höhe
+    private static void replay(Blockchain chain, int toHeight, BiConsumer<String, Double> ledger) {
+        StateSnapshot snapshot = chain.getSnapshot();
+        int from = 0;
+        if (snapshot != null && snapshot.height() <= toHeight) {
+            snapshot.balances().forEach(ledger);
+            from = snapshot.height();
+        }
+        if (from < chain.getBaseHeight()) {
+            throw new IllegalStateException("Blöcke unter #" + chain.getBaseHeight()
+                    + " sind entfernt und es gibt keinen passenden Snapshot – Balancen bis Höhe " + toHeight + " nicht berechenbar.");
+        }
+        for (int h = from; h < toHeight; h++) {
+            applyTransactions(chain.getBlock(h), ledger);
+        }
+    }
 
-                if (!isCoinbase) {
-                    Wallet from = findWalletByAddress(sender);
-                    if (from != null) from.debit(amount);
-                }
+    /**
+     * Inkrementeller Ledger: wendet nur die Transaktionen des zuletzt angehängten
+     * Blocks auf die Balancen an, statt die komplette Kette neu abzuspielen.
+     * Im Prüfmodus wird danach mit einem vollständigen Replay verglichen.
+     */
+    public static synchronized void applyLatestBlock(Blockchain chain) {
+        long start = System.nanoTime();
+        applyTransactions(chain.getLatestBlock(), WalletManager::applyDelta);
+        APPLY_BLOCK_TIME.record(System.nanoTime() - start);
+
+        if (consistencyCheck && !verifyBalances(chain)) {
+            System.err.println("🚨 Ledger inkonsistent – führe vollständigen Replay durch.");
+            recalculateAllBalances(chain);
+        }
+    }
 
-                if (!isExchangeSell) {
-                    Wallet to = findWalletByAddress(recipient);
-                    if (to != null) to.credit(amount);
-                }
+    /**
+     * Vergleicht die inkrementell geführten Balancen mit einem vollständigen Replay,
+     * ohne die Wallets zu verändern.
+     * @return true, wenn alle Wallets übereinstimmen.
+     */
+    public static synchronized boolean verifyBalances(Blockchain chain) {
+        Map<String, Double> expected = replayBalances(chain, chain.size());
+
+        int mismatches = 0;
+        for (Wallet w : wallets) {
+            double replayed = expected.getOrDefault(w.getAddress(), 0.0);
+            if (Math.abs(replayed - w.getBalance()) > BALANCE_TOLERANCE) {
+                mismatches++;
+                System.err.printf("Ledger-Abweichung bei %s...: Ledger %.3f SC, Replay %.3f SC%n",
+                        w.getAddress().substring(0, Math.min(10, w.getAddress().length())), w.getBalance(), replayed);
+            }
+        }
+        return mismatches == 0;
+    }
+
+    private static void applyDelta(String address, double delta) {
+        Wallet w = findWalletByAddress(address);
+        if (w != null) w.credit(delta);
+    }
+
+    // Buchungsregeln: Coinbase wird nicht belastet, Verkäufe an die Exchange werden verbrannt
+    private static void applyTransactions(Block block, BiConsumer<String, Double> ledger) {
+        for (Transaction tx : block.getTransactions()) {
+            String sender = tx.getSender();
+            String recipient = tx.getRecipient();
+            double amount = tx.getAmount();
+
+            boolean isCoinbase = "system".equals(sender) || sender == null || sender.isEmpty();
+            boolean isExchangeSell = MyChainGUI.EXCHANGE_ADDRESS.equals(recipient);
+
+            if (!isCoinbase) {
+                ledger.accept(sender, -amount);
+            }
+
+            if (!isExchangeSell) {
+                ledger.accept(recipient, amount);
             }
         }
-        saveWallets();
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package org.fintech;
+
+import javafx.beans.Observable;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+
+/**
+ * Eine Zeile der Wallet-Übersicht: Wallet plus die zuletzt angezeigten Balancen als Properties.
+ * Ändert sich eine Balance, meldet die Liste (über {@link #observables()}) nur diese Zeile als geändert;
+ * der Text wird erst in der sichtbaren Zelle über {@link #format()} gebaut.
+ */
+public class WalletRow {
+
+    public static final String HEADER = String.format("%-6s | %-25s | %10s | %10s | %s",
+            "ID", "Adresse", "SC Balance", "USD Balance", "Initial USD");
+
+    private final Wallet wallet;
+    private final DoubleProperty balance;
+    private final DoubleProperty usdBalance;
+
+    public WalletRow(Wallet wallet) {
+        this.wallet = wallet;
+        this.balance = new SimpleDoubleProperty(wallet.getBalance());
+        this.usdBalance = new SimpleDoubleProperty(wallet.getUsdBalance());
+    }
+
+    /** Übernimmt geänderte Balancen aus der Wallet. @return true, wenn sich etwas geändert hat */
+    boolean refresh() {
+        boolean changed = false;
+        if (balance.get() != wallet.getBalance()) {
+            balance.set(wallet.getBalance());
+            changed = true;
+        }
+        if (usdBalance.get() != wallet.getUsdBalance()) {
+            usdBalance.set(wallet.getUsdBalance());
+            changed = true;
+        }
+        return changed;
+    }
+
+    // Extraktor für die ObservableList
+    Observable[] observables() {
+        return new Observable[]{balance, usdBalance};
+    }
+
+    public String format() {
+        String shortAddr = wallet.getAddress().substring(0, Math.min(25, wallet.getAddress().length())) + "...";
+        return String.format("%-6s | %-25s | %10.3f SC | %10.2f USD | %7.2f $",
+                wallet.getUniqueId() + "...",
+                shortAddr,
+                getBalance(),
+                getUsdBalance(),
+                wallet.getInitialUsdBalance());
+    }
+
+    public Wallet getWallet() { return wallet; }
+    public String getAddress() { return wallet.getAddress(); }
+    public double getBalance() { return balance.get(); }
+    public double getUsdBalance() { return usdBalance.get(); }
+    public double getInitialUsdBalance() { return wallet.getInitialUsdBalance(); }
+}
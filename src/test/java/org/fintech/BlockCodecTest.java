@@ -0,0 +1,194 @@
+package org.fintech;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ältere Formatversionen werden hier unabhängig vom Codec nach dem dokumentierten Aufbau geschrieben –
+ * so fällt auf, wenn eine Änderung am Decoder alte Block-Logs unlesbar macht.
+ */
+class BlockCodecTest {
+
+    private static final String HASH = "00a1b2c3d4e5f60718293a4b5c6d7e8f00a1b2c3d4e5f60718293a4b5c6d7e8f";
+    private static final String PREVIOUS = "0f1e2d3c4b5a69788796a5b4c3d2e1f00f1e2d3c4b5a69788796a5b4c3d2e1f0";
+    private static final String TX_ID = "1111111111111111111111111111111111111111111111111111111111111111";
+
+    @TempDir
+    Path dir;
+
+    private AddressDictionary dictionary;
+    private BlockCodec codec;
+
+    @BeforeEach
+    void openDictionary() throws IOException {
+        dictionary = AddressDictionary.open(dir.resolve("addresses.dat"));
+        codec = new BlockCodec(dictionary);
+    }
+
+    @AfterEach
+    void closeDictionary() throws IOException {
+        dictionary.close();
+    }
+
+    private static List<Transaction> transactions() {
+        return List.of(
+                new Transaction("alice", "bob", 12.345, "Milli-Betrag", TX_ID, new byte[] { 1, 2, 3 }),
+                new Transaction("bob", "carol", 0.1 + 0.2, "Kein Milli-Betrag", "text-id", new byte[0]));
+    }
+
+    private static Block block(int version, String previousHash) {
+        return new Block(version, HASH, previousHash, transactions(), 1_700_000_000_123L, -42);
+    }
+
+    private static void assertSameBlock(Block expected, Block actual) {
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getHash(), actual.getHash());
+        assertEquals(expected.getPreviousHash(), actual.getPreviousHash());
+        assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+        assertEquals(expected.getNonce(), actual.getNonce());
+        assertEquals(expected.getMerkleRoot(), actual.getMerkleRoot());
+        List<Transaction> want = expected.getTransactions();
+        List<Transaction> got = actual.getTransactions();
+        assertEquals(want.size(), got.size());
+        for (int i = 0; i < want.size(); i++) {
+            assertEquals(want.get(i).getSender(), got.get(i).getSender());
+            assertEquals(want.get(i).getRecipient(), got.get(i).getRecipient());
+            assertEquals(want.get(i).getAmount(), got.get(i).getAmount());
+            assertEquals(want.get(i).getMessage(), got.get(i).getMessage());
+            assertEquals(want.get(i).getTxId(), got.get(i).getTxId());
+            assertArrayEquals(want.get(i).getSignature(), got.get(i).getSignature());
+        }
+    }
+
+    @Test
+    void currentFormatRoundTrips() throws IOException {
+        Block block = block(Block.CURRENT_VERSION, PREVIOUS);
+        byte[] payload = codec.encode(block);
+
+        assertTrue(BlockCodec.isBinary(payload));
+        assertEquals(BlockCodec.VERSION, payload[1]);
+        assertSameBlock(block, codec.decode(payload));
+    }
+
+    @Test
+    void genesisWithTextPreviousHashRoundTrips() throws IOException {
+        Block genesis = block(Block.CURRENT_VERSION, "0");
+        assertSameBlock(genesis, codec.decode(codec.encode(genesis)));
+    }
+
+    @Test
+    void headerIsReadFromThePrefixAlone() throws IOException {
+        Block block = block(Block.CURRENT_VERSION, PREVIOUS);
+        byte[] payload = codec.encode(block);
+        byte[] prefix = Arrays.copyOf(payload, 120);
+
+        BlockHeader header = BlockCodec.decodeHeader(prefix, 7);
+
+        assertEquals(BlockHeader.of(7, block), header);
+        assertNull(BlockCodec.decodeHeader(Arrays.copyOf(payload, 20), 7));
+    }
+
+    @Test
+    void version2WithoutMerkleRootIsStillRead() throws IOException {
+        Block block = block(Block.CURRENT_VERSION, PREVIOUS);
+        byte[] payload = legacyPayload(2, block);
+
+        assertSameBlock(block, codec.decode(payload));
+        assertNull(BlockCodec.decodeHeader(payload, 0));
+    }
+
+    @Test
+    void version1WithoutBlockVersionIsReadAsLegacyBlock() throws IOException {
+        Block block = block(Block.LEGACY_VERSION, "0");
+        byte[] payload = legacyPayload(1, block);
+
+        Block decoded = codec.decode(payload);
+
+        assertEquals(Block.LEGACY_VERSION, decoded.getVersion());
+        assertSameBlock(block, decoded);
+        assertNull(BlockCodec.decodeHeader(payload, 0));
+    }
+
+    @Test
+    void unknownFormatVersionIsRejected() throws IOException {
+        byte[] payload = codec.encode(block(Block.CURRENT_VERSION, PREVIOUS));
+        payload[1] = (byte) (BlockCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(payload));
+    }
+
+    // --- ALTE FORMATE ---
+
+    // Version 1: MAGIC | 1 | hash | previousHash | timeStamp | nonce | txCount | tx...
+    // Version 2: MAGIC | 2 | blockVersion | hash | previousHash | timeStamp | nonce | txCount | tx...
+    private byte[] legacyPayload(int formatVersion, Block block) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BlockCodec.MAGIC);
+        out.write(formatVersion);
+        if (formatVersion >= 2) writeVarLong(out, block.getVersion());
+        writeHash(out, block.getHash());
+        writeHash(out, block.getPreviousHash());
+        writeVarLong(out, zigZag(block.getTimeStamp()));
+        writeVarLong(out, zigZag(block.getNonce()));
+        writeVarLong(out, block.getTransactionCount());
+        for (Transaction tx : block.getTransactions()) {
+            writeVarLong(out, dictionary.idFor(tx.getSender()));
+            writeVarLong(out, dictionary.idFor(tx.getRecipient()));
+            writeAmount(out, tx.getAmount());
+            writeBytes(out, tx.getMessage().getBytes(StandardCharsets.UTF_8));
+            writeHash(out, tx.getTxId());
+            writeBytes(out, tx.getSignature());
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeHash(ByteArrayOutputStream out, String hash) {
+        if (hash.length() == 64) {
+            out.write(0);
+            for (int i = 0; i < 64; i += 2) out.write(Integer.parseInt(hash.substring(i, i + 2), 16));
+        } else {
+            out.write(1);
+            writeBytes(out, hash.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeAmount(ByteArrayOutputStream out, double amount) {
+        long milli = Math.round(amount * 1000.0);
+        if (milli / 1000.0 == amount) {
+            out.write(0);
+            writeVarLong(out, zigZag(milli));
+        } else {
+            out.write(1);
+            long bits = Double.doubleToRawLongBits(amount);
+            for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (bits >>> shift));
+        }
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] data) {
+        writeVarLong(out, data.length);
+        out.write(data, 0, data.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
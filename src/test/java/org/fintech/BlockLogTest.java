@@ -0,0 +1,142 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockLogTest {
+
+    @TempDir
+    Path dir;
+
+    // ~100 KB pro Record: ein Segment (1 MB) fasst etwa zehn davon
+    private static byte[] payload(int height) {
+        byte[] data = new byte[100_000];
+        ByteBuffer.wrap(data).putInt(height);
+        data[data.length - 1] = (byte) height;
+        return data;
+    }
+
+    private static int heightOf(byte[] payload) {
+        return ByteBuffer.wrap(payload).getInt();
+    }
+
+    private BlockLog logWith(int blocks) throws IOException {
+        BlockLog log = BlockLog.open(dir);
+        for (int h = 0; h < blocks; h++) log.append(payload(h));
+        return log;
+    }
+
+    @Test
+    void reopenedLogReturnsAllRecordsInOrder() throws IOException {
+        logWith(25).close();
+
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(25, log.size());
+            List<byte[]> all = log.readAll();
+            for (int h = 0; h < all.size(); h++) assertEquals(h, heightOf(all.get(h)));
+        }
+    }
+
+    @Test
+    void tornRecordAtTheEndIsCutOff() throws IOException {
+        logWith(5).close();
+        // Absturz mitten im Schreiben: Kopf verspricht 1000 Bytes, es stehen nur 10 da
+        try (FileChannel segment = FileChannel.open(BlockLog.segmentPath(dir, 0), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            segment.write(ByteBuffer.allocate(BlockLog.RECORD_HEADER_BYTES + 10).putInt(1000).putInt(0).rewind());
+        }
+
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(5, log.size());
+            log.append(payload(5));
+        }
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(6, log.size());
+            assertEquals(5, heightOf(log.readAll().get(5)));
+        }
+    }
+
+    @Test
+    void recordWithBadChecksumEndsTheLog() throws IOException {
+        logWith(5).close();
+        Path segment = BlockLog.segmentPath(dir, 0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 2] ^= 0x55; // im Payload des letzten Records
+        Files.write(segment, bytes);
+
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(4, log.size());
+        }
+    }
+
+    @Test
+    void missingIndexEntriesAreRebuiltFromTheSegments() throws IOException {
+        logWith(12).close();
+        try (FileChannel index = FileChannel.open(dir.resolve(BlockLog.INDEX_FILE), StandardOpenOption.WRITE)) {
+            index.truncate(3L * BlockLog.INDEX_ENTRY_BYTES + 5); // drei Einträge plus ein halber
+        }
+
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(12, log.size());
+            List<byte[]> all = log.readAll();
+            for (int h = 0; h < all.size(); h++) assertEquals(h, heightOf(all.get(h)));
+        }
+    }
+
+    @Test
+    void pruneRemovesWholeSegmentsBelowTheTarget() throws IOException {
+        int base;
+        try (BlockLog log = logWith(40)) {
+            long before = log.sizeInBytes();
+            base = log.pruneBelow(25, null);
+
+            assertTrue(base > 0 && base <= 25, "Basis " + base);
+            assertEquals(40, log.size());
+            assertTrue(log.sizeInBytes() < before);
+            assertFalse(Files.exists(BlockLog.segmentPath(dir, 0)));
+            List<byte[]> rest = log.readAll();
+            assertEquals(40 - base, rest.size());
+            assertEquals(base, heightOf(rest.get(0)));
+        }
+
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(base, log.getBaseHeight());
+            assertEquals(40, log.size());
+            log.append(payload(40));
+            assertEquals(40, heightOf(log.readAll().get(40 - base)));
+        }
+    }
+
+    @Test
+    void pruneKeepsTheLastBlockAndCanArchive() throws IOException {
+        Path archive = dir.resolve("archive");
+        try (BlockLog log = logWith(40)) {
+            int base = log.pruneBelow(1000, archive);
+            assertTrue(base < 40);
+            assertEquals(40, log.size());
+            assertTrue(Files.exists(archive.resolve(BlockLog.segmentPath(dir, 0).getFileName())));
+        }
+    }
+
+    @Test
+    void truncateDropsBlocksFromTheEnd() throws IOException {
+        try (BlockLog log = logWith(30)) {
+            log.truncate(17);
+            assertEquals(17, log.size());
+            log.append(payload(99));
+        }
+        try (BlockLog log = BlockLog.open(dir)) {
+            assertEquals(18, log.size());
+            assertEquals(99, heightOf(log.readAll().get(17)));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private record Fill(long makerOrderId, int makerOwner, int takerOwner, boolean takerBuy, long price, long quantity) {}
+
+    private record Cancel(long orderId, int owner, long remaining) {}
+
+    private final List<Fill> fills = new ArrayList<>();
+    private final List<Cancel> cancels = new ArrayList<>();
+
+    private final OrderBook book = new OrderBook(new OrderBook.Listener() {
+        @Override
+        public void onFill(long makerOrderId, int makerOwner, long takerOrderId, int takerOwner,
+                           boolean takerBuy, long price, long quantity) {
+            fills.add(new Fill(makerOrderId, makerOwner, takerOwner, takerBuy, price, quantity));
+        }
+
+        @Override
+        public void onCancel(long orderId, int owner, boolean buy, long price, long remaining) {
+            cancels.add(new Cancel(orderId, owner, remaining));
+        }
+    });
+
+    @Test
+    void bestPriceIsFilledFirst() {
+        book.submitLimit(1, false, 10_010, 5);
+        book.submitLimit(2, false, 10_000, 5);
+        book.submitLimit(3, false, 10_020, 5);
+
+        book.submitLimit(9, true, 10_020, 12);
+
+        assertEquals(List.of(10_000L, 10_010L, 10_020L), fills.stream().map(Fill::price).toList());
+        assertEquals(List.of(2, 1, 3), fills.stream().map(Fill::makerOwner).toList());
+        assertEquals(List.of(5L, 5L, 2L), fills.stream().map(Fill::quantity).toList());
+        assertEquals(10_020, book.getLastTradePrice());
+        assertEquals(3, book.getVolumeAt(false, 10_020));
+    }
+
+    @Test
+    void samePriceIsFilledInArrivalOrder() {
+        long first = book.submitLimit(1, true, 9_990, 4);
+        long second = book.submitLimit(2, true, 9_990, 4);
+        long third = book.submitLimit(3, true, 9_990, 4);
+
+        book.submitLimit(9, false, 9_990, 6);
+
+        assertEquals(List.of(first, second), fills.stream().map(Fill::makerOrderId).toList());
+        assertEquals(0, book.remaining(first));
+        assertEquals(2, book.remaining(second));
+        assertEquals(4, book.remaining(third));
+        assertEquals(6, book.getVolumeAt(true, 9_990));
+    }
+
+    @Test
+    void cancelledOrderLosesItsPlaceInTheQueue() {
+        long first = book.submitLimit(1, false, 10_000, 3);
+        long second = book.submitLimit(2, false, 10_000, 3);
+        assertTrue(book.cancel(first));
+        assertFalse(book.cancel(first));
+
+        book.submitMarket(9, true, 3);
+
+        assertEquals(List.of(second), fills.stream().map(Fill::makerOrderId).toList());
+        assertEquals(new Cancel(first, 1, 3), cancels.get(0));
+    }
+
+    @Test
+    void partialFillLeavesTheRestOfALimitOrderResting() {
+        book.submitLimit(1, false, 10_000, 5);
+
+        long taker = book.submitLimit(9, true, 10_005, 8);
+
+        assertEquals(1, fills.size());
+        assertEquals(5, fills.get(0).quantity());
+        assertEquals(3, book.remaining(taker));
+        assertEquals(10_005, book.getBestBid());
+        assertEquals(0, book.getBestAsk());
+    }
+
+    @Test
+    void immediateOrderStopsAtItsLimitAndDropsTheRest() {
+        book.submitLimit(1, false, 10_000, 5);
+        book.submitLimit(2, false, 10_050, 5);
+
+        long taker = book.submitImmediate(9, true, 10_010, 8);
+
+        assertEquals(1, fills.size());
+        assertEquals(0, book.remaining(taker));
+        assertEquals(new Cancel(taker, 9, 3), cancels.get(0));
+        assertEquals(10_050, book.getBestAsk());
+        assertEquals(0, book.getBestBid());
+    }
+
+    @Test
+    void marketOrderWalksTheBookUntilTheOtherSideIsEmpty() {
+        book.submitLimit(1, true, 9_990, 2);
+        book.submitLimit(2, true, 9_900, 2);
+
+        long taker = book.submitMarket(9, false, 10);
+
+        assertEquals(List.of(9_990L, 9_900L), fills.stream().map(Fill::price).toList());
+        assertEquals(new Cancel(taker, 9, 6), cancels.get(0));
+        assertEquals(0, book.getLevelCount(true));
+    }
+
+    @Test
+    void ownRestingOrderIsCancelledInsteadOfTraded() {
+        long own = book.submitLimit(1, false, 10_000, 5);
+        book.submitLimit(2, false, 10_000, 5);
+
+        book.submitLimit(1, true, 10_000, 5);
+
+        assertEquals(new Cancel(own, 1, 5), cancels.get(0));
+        assertEquals(1, fills.size());
+        assertEquals(2, fills.get(0).makerOwner());
+    }
+
+    @Test
+    void filledSlotsAreReusedWithoutConfusingOldIds() {
+        long old = book.submitLimit(1, false, 10_000, 1);
+        book.submitMarket(9, true, 1);
+        long reused = book.submitLimit(2, false, 10_000, 1);
+
+        assertNotEquals(old, reused);
+        assertEquals(0, book.remaining(old));
+        assertFalse(book.cancel(old));
+        assertEquals(1, book.remaining(reused));
+    }
+}
@@ -0,0 +1,113 @@
+package org.fintech;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFallbackTest {
+
+    @TempDir
+    Path dir;
+
+    private Path logDir;
+
+    @BeforeEach
+    void useTempLog() {
+        logDir = dir.resolve("blockchain-log");
+        BlockchainPersistence.setDirectory(logDir);
+        BlockchainPersistence.setRetention(0, BlockchainPersistence.PruneMode.DELETE);
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        BlockchainPersistence.setDirectory(Path.of("blockchain-log"));
+        BlockchainPersistence.setRetention(200, BlockchainPersistence.PruneMode.DELETE);
+    }
+
+    // Große Nachrichten, damit die Kette mehrere Log-Segmente (je 1 MB) belegt
+    private static void addBlocks(Blockchain chain, int count) {
+        String filler = "x".repeat(50_000);
+        for (int i = 0; i < count; i++) {
+            int h = chain.size();
+            chain.addBlock(List.of(new Transaction("system", "addr-" + (h % 3), 1.0 + h, filler + h)));
+        }
+    }
+
+    // Kette mit Snapshots bei Höhe 31 und 61, danach gekürzt; liefert die erwarteten Balancen
+    private Map<String, Double> prunedChainWithTwoSnapshots() {
+        Blockchain chain = new Blockchain("Test", 1);
+        addBlocks(chain, 30);
+        assertEquals(31, BlockchainPersistence.createSnapshot(chain, 1.0).height());
+        addBlocks(chain, 30);
+        assertEquals(61, BlockchainPersistence.createSnapshot(chain, 1.0).height());
+        Map<String, Double> expected = WalletManager.replayBalances(chain, chain.size());
+
+        int base = BlockchainPersistence.prune(chain);
+        assertTrue(base > 0, "Kette wurde nicht gekürzt");
+        // Der ältere Snapshot muss über der neuen Basis bleiben
+        assertTrue(base <= 31, "Basis " + base + " liegt über dem Rückfall-Snapshot");
+        return expected;
+    }
+
+    private List<Path> snapshotFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(logDir.resolve("snapshots"), "snapshot-*.json")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    @Test
+    void unreadableNewestSnapshotFallsBackToThePreviousOne() throws IOException {
+        Map<String, Double> expected = prunedChainWithTwoSnapshots();
+        List<Path> files = snapshotFiles();
+        assertEquals(2, files.size());
+        Files.writeString(files.get(1), "{ abgerissen");
+
+        BlockchainPersistence.setDirectory(logDir); // wie ein Neustart
+        Blockchain loaded = BlockchainPersistence.loadBlockchain("Test", 1);
+
+        assertEquals(61, loaded.size());
+        assertEquals(31, loaded.getSnapshot().height());
+        Map<String, Double> balances = WalletManager.replayBalances(loaded, loaded.size());
+        assertEquals(expected.keySet(), balances.keySet());
+        expected.forEach((address, balance) -> assertEquals(balance, balances.get(address), 1e-9, address));
+    }
+
+    @Test
+    void prunedChainWithoutSnapshotFailsToLoad() throws IOException {
+        prunedChainWithTwoSnapshots();
+        for (Path file : snapshotFiles()) Files.delete(file);
+
+        BlockchainPersistence.setDirectory(logDir);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> BlockchainPersistence.loadBlockchain("Test", 1));
+        assertTrue(e.getMessage().contains("Kein passender Snapshot"), e.getMessage());
+    }
+
+    @Test
+    void unprunedChainLoadsWithoutSnapshot() throws IOException {
+        Blockchain chain = new Blockchain("Test", 1);
+        addBlocks(chain, 5);
+        BlockchainPersistence.saveBlockchain(chain);
+        Map<String, Double> expected = WalletManager.replayBalances(chain, chain.size());
+
+        BlockchainPersistence.setDirectory(logDir);
+        Blockchain loaded = BlockchainPersistence.loadBlockchain("Test", 1);
+
+        assertNull(loaded.getSnapshot());
+        assertEquals(expected, WalletManager.replayBalances(loaded, loaded.size()));
+    }
+}
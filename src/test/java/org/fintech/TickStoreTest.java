@@ -0,0 +1,138 @@
+package org.fintech;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStoreTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private static void fill(TickStore store, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            store.append(T0 + i, 1.0 + i * 1e-6, i, i % 2 == 0 ? TickStore.SIDE_BUY : TickStore.SIDE_SELL);
+        }
+    }
+
+    private static List<Long> times(TickStore store, long from, long to) throws IOException {
+        List<Long> times = new ArrayList<>();
+        store.query(from, to, (time, price, volume, side) -> times.add(time));
+        return times;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "ticks-*.dat")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    @Test
+    void reopenedStoreKeepsTicksAcrossSegments() throws IOException {
+        int total = TickStore.SEGMENT_RECORDS + 1000;
+        try (TickStore store = TickStore.open(dir)) {
+            fill(store, 0, total);
+            assertEquals(2, store.getSegmentCount());
+        }
+
+        try (TickStore store = TickStore.open(dir)) {
+            assertEquals(total, store.size());
+            assertEquals(T0 + total - 1, store.getLastTime());
+            assertEquals(1.0 + (total - 1) * 1e-6, store.getLastPrice());
+
+            long[] expected = { T0 };
+            double[] volumes = { 0 };
+            long read = store.replay((time, price, volume, side) -> {
+                assertEquals(expected[0]++, time);
+                assertEquals(volumes[0]++, volume);
+                assertEquals(((long) volume) % 2 == 0 ? TickStore.SIDE_BUY : TickStore.SIDE_SELL, side);
+            });
+            assertEquals(total, read);
+
+            fill(store, total, total + 10);
+            assertEquals(total + 10, store.size());
+        }
+    }
+
+    @Test
+    void queryReturnsOnlyTheWindowAcrossASegmentBoundary() throws IOException {
+        int boundary = TickStore.SEGMENT_RECORDS;
+        try (TickStore store = TickStore.open(dir)) {
+            fill(store, 0, boundary + 500);
+
+            assertEquals(List.of(T0 + boundary - 2, T0 + boundary - 1, T0 + boundary, T0 + boundary + 1),
+                    times(store, T0 + boundary - 2, T0 + boundary + 2));
+            assertEquals(List.of(T0, T0 + 1), times(store, Long.MIN_VALUE, T0 + 2));
+            assertTrue(times(store, T0 + boundary + 500, Long.MAX_VALUE).isEmpty());
+        }
+    }
+
+    @Test
+    void timestampsNeverGoBackwards() throws IOException {
+        try (TickStore store = TickStore.open(dir)) {
+            store.append(T0 + 10, 1.0, 1, TickStore.SIDE_BUY);
+            store.append(T0 + 5, 2.0, 1, TickStore.SIDE_SELL);
+
+            assertEquals(List.of(T0 + 10, T0 + 10), times(store, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void preparedSegmentIsUsedOnRolloverAndUnusedOneIsRemoved() throws IOException {
+        try (TickStore store = TickStore.open(dir)) {
+            // Vorbereiter auf demselben Thread: das nächste Segment existiert, bevor das aktive voll ist
+            store.setPreparer(Runnable::run);
+            fill(store, 0, TickStore.SEGMENT_RECORDS / 2);
+            assertEquals(2, segmentFiles().size());
+            assertEquals(1, store.getSegmentCount());
+
+            fill(store, TickStore.SEGMENT_RECORDS / 2, TickStore.SEGMENT_RECORDS + 1);
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(List.of(T0 + TickStore.SEGMENT_RECORDS), times(store, T0 + TickStore.SEGMENT_RECORDS, Long.MAX_VALUE));
+
+            fill(store, TickStore.SEGMENT_RECORDS + 1, TickStore.SEGMENT_RECORDS + TickStore.SEGMENT_RECORDS / 2);
+            assertEquals(3, segmentFiles().size());
+        }
+
+        try (TickStore store = TickStore.open(dir)) {
+            assertEquals(2, segmentFiles().size());
+            assertEquals(TickStore.SEGMENT_RECORDS + TickStore.SEGMENT_RECORDS / 2, store.size());
+        }
+    }
+
+    @Test
+    void recordsMissingAfterASystemCrashAreCutOff() throws IOException {
+        try (TickStore store = TickStore.open(dir)) {
+            fill(store, 0, 5000);
+        }
+        // Kopf auf der Platte, eine Record-Seite nicht: dort stehen Nullen
+        try (FileChannel segment = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.allocate(4096), TickStore.HEADER_BYTES + 3000L * TickStore.RECORD_BYTES);
+        }
+
+        try (TickStore store = TickStore.open(dir)) {
+            assertEquals(3000, store.size());
+            assertEquals(T0 + 2999, store.getLastTime());
+            store.append(T0 + 6000, 2.0, 1, TickStore.SIDE_BUY);
+        }
+        try (TickStore store = TickStore.open(dir)) {
+            assertEquals(3001, store.size());
+        }
+    }
+}